@@ -0,0 +1,75 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.SwerveConstants;
+import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.GyroIO;
+import frc.robot.subsystems.ModuleIO;
+
+/** Per-loop drive path, run against IO that drops every output. */
+@State(Scope.Thread)
+public class DrivetrainBenchmark {
+  private Drivetrain drivetrain;
+  private Translation2d centerOfRotation;
+  private ChassisSpeeds chassisSpeeds;
+  private SwerveModuleState[] moduleStates;
+  private SwerveModuleState moduleState;
+  private Rotation2d currentAngle;
+
+  private double joystick = 0;
+
+  @Setup
+  public void setup(){
+    HAL.initialize(500, 0);
+
+    drivetrain = new Drivetrain(new GyroIO() {}, new ModuleIO() {}, new ModuleIO() {}, new ModuleIO() {}, new ModuleIO() {});
+    centerOfRotation = new Translation2d();
+    chassisSpeeds = new ChassisSpeeds(3.0, 1.5, 2.0);
+    moduleStates = SwerveConstants.DRIVE_KINEMATICS.toSwerveModuleStates(new ChassisSpeeds(8.0, 4.0, 6.0));
+    moduleState = new SwerveModuleState(2.0, Rotation2d.fromDegrees(170));
+    currentAngle = Rotation2d.fromDegrees(-20);
+  }
+
+  @Benchmark
+  public void swerveDriveJoystick(){
+    joystick = joystick > 1 ? -1 : joystick + 0.01; //keep the slew rate limiters and deadband busy
+    drivetrain.swerveDrive(joystick, -joystick, joystick / 2, true, centerOfRotation, true, SwerveConstants.EXPONENT);
+  }
+
+  @Benchmark
+  public SwerveModuleState[] toSwerveModuleStates(){
+    return SwerveConstants.DRIVE_KINEMATICS.toSwerveModuleStates(chassisSpeeds, centerOfRotation);
+  }
+
+  @Benchmark
+  @SuppressWarnings("deprecation")
+  public SwerveModuleState optimize(){
+    return SwerveModuleState.optimize(moduleState, currentAngle);
+  }
+
+  @Benchmark
+  public void desaturateWheelSpeeds(Blackhole blackhole){
+    SwerveDriveKinematics.desaturateWheelSpeeds(moduleStates, SwerveConstants.DRIVETRAIN_MAX_SPEED);
+    blackhole.consume(moduleStates);
+  }
+
+  @Benchmark
+  public SwerveModuleState[] getModuleStates(){
+    return drivetrain.getModuleStates();
+  }
+}
@@ -0,0 +1,160 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.drivers;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Applies motor controller configuration on a background thread so blocking CAN calls never cost
+ * loop time. Changes are keyed by device and setting; a change submitted while an earlier one with the
+ * same key is still waiting replaces it, so only the latest value is sent. Failed attempts are retried
+ * with a growing delay, so a busy CAN bus has time to clear.
+ */
+public class ConfigApplier {
+    public static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 20; // Doubles after each failed attempt
+
+    public enum Status {
+        PENDING, APPLYING, APPLIED, FAILED
+    }
+
+    /** Handle for a submitted change. */
+    public static class Request {
+        private final String key;
+        private volatile BooleanSupplier apply;
+        private volatile Runnable onFailure;
+        private volatile Status status = Status.PENDING;
+        private volatile int attempts = 0;
+
+        private Request(String key, BooleanSupplier apply, Runnable onFailure) {
+            this.key = key;
+            this.apply = apply;
+            this.onFailure = onFailure;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public boolean isDone() {
+            return status == Status.APPLIED || status == Status.FAILED;
+        }
+    }
+
+    private final Map<String, Request> pending = new LinkedHashMap<>();
+    private volatile int failedCount = 0;
+
+    private static final ConfigApplier CONFIG_APPLIER = new ConfigApplier();
+
+    public static ConfigApplier getInstance() {
+        return CONFIG_APPLIER;
+    }
+
+    private ConfigApplier() {
+        Thread worker = new Thread(this::run, "ConfigApplier");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a configuration change.
+     * @param key Identifies the device and setting, e.g. "Spark 5 IdleMode".
+     * @param apply Sends the change, blocking as long as it needs to, and returns whether it succeeded.
+     * @return The handle for the change, shared with any waiting change it was merged into.
+     */
+    public Request submit(String key, BooleanSupplier apply) {
+        return submit(key, apply, () -> {});
+    }
+
+    /**
+     * Queues a configuration change.
+     * @param key Identifies the device and setting, e.g. "Spark 5 IdleMode".
+     * @param apply Sends the change, blocking as long as it needs to, and returns whether it succeeded.
+     * @param onFailure Runs on the worker thread once every attempt has failed, e.g. to forget a cached value.
+     * @return The handle for the change, shared with any waiting change it was merged into.
+     */
+    public Request submit(String key, BooleanSupplier apply, Runnable onFailure) {
+        synchronized (pending) {
+            Request request = pending.get(key);
+            if (request != null) {
+                request.apply = apply;
+                request.onFailure = onFailure;
+            } else {
+                request = new Request(key, apply, onFailure);
+                pending.put(key, request);
+                pending.notifyAll();
+            }
+            return request;
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    private void run() {
+        while (true) {
+            Request request;
+            synchronized (pending) {
+                while (pending.isEmpty()) {
+                    try {
+                        pending.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                Iterator<Request> iterator = pending.values().iterator();
+                request = iterator.next();
+                iterator.remove();
+            }
+
+            request.status = Status.APPLYING;
+            boolean applied = false;
+            long backoffMs = RETRY_BACKOFF_MS;
+            while (true) {
+                request.attempts++;
+                applied = request.apply.getAsBoolean();
+                if (applied || request.attempts >= MAX_ATTEMPTS) {
+                    break;
+                }
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                backoffMs *= 2;
+            }
+
+            if (applied) {
+                request.status = Status.APPLIED;
+            } else {
+                request.status = Status.FAILED;
+                failedCount++;
+                request.onFailure.run();
+                DriverStation.reportWarning(
+                    "Failed to apply " + request.key + " after " + request.attempts + " attempts", false);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.drivers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Preferences;
+
+/**
+ * Remembers the fingerprint of the configuration last flashed to each motor controller, so devices
+ * whose persisted configuration already matches can skip the reset and flash at boot. A match is not
+ * trusted on its own: SPARKs still get the configuration without persisting it, and TalonFXs have
+ * their key settings read back. The cache lives next to the robot program on the roboRIO. Delete it to
+ * force every device to be flashed again.
+ */
+public class ConfigCache {
+    private static final String CACHE_FILE = "motor-config-cache.properties";
+
+    private final File file;
+    private final Properties fingerprints = new Properties();
+    private final Map<String, Integer> pendingFlashes = new HashMap<>();
+    private boolean dirty = false;
+
+    private static final ConfigCache CONFIG_CACHE = new ConfigCache();
+
+    public static ConfigCache getInstance() {
+        return CONFIG_CACHE;
+    }
+
+    private ConfigCache() {
+        file = new File(Filesystem.getOperatingDirectory(), CACHE_FILE);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                fingerprints.load(in);
+            } catch (IOException e) {
+                DriverStation.reportWarning("Could not read " + file + ", flashing all devices", false);
+                fingerprints.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the device was last flashed with this configuration.
+     * @param device Identifies the device, e.g. "Spark 5".
+     * @param fingerprint The configuration's fingerprint.
+     */
+    public synchronized boolean matches(String device, String fingerprint) {
+        return fingerprint.equals(fingerprints.getProperty(device));
+    }
+
+    /**
+     * Records that the device was flashed with this configuration. Nothing is written until
+     * {@link #flush()}.
+     * @param device Identifies the device, e.g. "Spark 5".
+     * @param fingerprint The configuration's fingerprint.
+     */
+    public synchronized void recordFlash(String device, String fingerprint) {
+        fingerprints.setProperty(device, fingerprint);
+        pendingFlashes.merge(device, 1, Integer::sum);
+        dirty = true;
+    }
+
+    /** Writes the cache and the "Flashes" counters for every device flashed since the last flush. */
+    public synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+
+        for (Map.Entry<String, Integer> flash : pendingFlashes.entrySet()) {
+            String key = flash.getKey() + " Flashes";
+            Preferences.setDouble(key, Preferences.getDouble(key, 0) + flash.getValue());
+        }
+        pendingFlashes.clear();
+
+        write();
+        dirty = false;
+    }
+
+    /**
+     * Forgets the device's fingerprint, for when a setting is persisted outside of its constructor.
+     * Writes the cache right away, so call it off the main thread.
+     * @param device Identifies the device, e.g. "TalonFX 1".
+     */
+    public synchronized void invalidate(String device) {
+        if (fingerprints.remove(device) != null) {
+            write();
+        }
+    }
+
+    private void write() {
+        try (OutputStream out = new FileOutputStream(file)) {
+            fingerprints.store(out, "Fingerprints of the configuration persisted on each motor controller");
+        } catch (IOException e) {
+            DriverStation.reportWarning("Could not write " + file, false);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.drivers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Brings devices up concurrently, so blocking configuration on one device does not hold up the
+ * others. Each device moves from CONFIGURING to READY, or to FAILED if its constructor throws; the
+ * final states are logged by {@link #logStates()}.
+ */
+public class DeviceInitializer {
+    private static final long TIMEOUT_SECONDS = 10; // Far longer than a healthy device's blocking config calls
+
+    public enum State {
+        CONFIGURING, READY, FAILED
+    }
+
+    /** A device being brought up. */
+    public static class Device<T> {
+        private final String name;
+        private final CompletableFuture<T> future;
+        private volatile State state = State.CONFIGURING;
+        private volatile double durationMs = 0;
+
+        private Device(String name, Supplier<T> constructor) {
+            this.name = name;
+            future = CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    T device = constructor.get();
+                    if (state == State.CONFIGURING) { // Stays FAILED if get() already gave up on it
+                        state = State.READY;
+                    }
+                    return device;
+                } catch (RuntimeException e) {
+                    state = State.FAILED;
+                    DriverStation.reportError("Failed to initialize " + name + ": " + e.getMessage(), e.getStackTrace());
+                    throw e;
+                } finally {
+                    durationMs = (System.nanoTime() - start) / 1e6;
+                }
+            }, executor);
+        }
+
+        /**
+         * Waits for the device to finish coming up, for at most {@value DeviceInitializer#TIMEOUT_SECONDS} seconds.
+         * @param fallback Returned in place of the device if it failed or timed out.
+         * @return The device, or the fallback.
+         */
+        public T get(T fallback) {
+            try {
+                return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                state = State.FAILED;
+                DriverStation.reportError("Timed out initializing " + name, false);
+                return fallback;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                state = State.FAILED;
+                return fallback;
+            } catch (ExecutionException e) {
+                return fallback;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "DeviceInitializer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final List<Device<?>> devices = new ArrayList<>();
+
+    private DeviceInitializer() {}
+
+    /**
+     * Starts constructing a device on a background thread.
+     * @param name The name used in the log.
+     * @param constructor Creates and configures the device.
+     * @return The device's handle.
+     */
+    public static synchronized <T> Device<T> start(String name, Supplier<T> constructor) {
+        Device<T> device = new Device<>(name, constructor);
+        devices.add(device);
+        return device;
+    }
+
+    /** Logs each device's state and bring-up time. Call after the Logger has started. */
+    public static synchronized void logStates() {
+        for (Device<?> device : devices) {
+            Logger.recordOutput("DeviceInit/" + device.name + "/State", device.state.name());
+            Logger.recordOutput("DeviceInit/" + device.name + "/DurationMs", device.durationMs);
+        }
+    }
+}
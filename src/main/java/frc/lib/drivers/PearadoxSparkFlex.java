@@ -4,14 +4,21 @@
 
 package frc.lib.drivers;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.revrobotics.REVLibError;
 import com.revrobotics.spark.config.SparkFlexConfig;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 
-import edu.wpi.first.wpilibj.Preferences;
-
 /** Add your docs here. */
 public class PearadoxSparkFlex extends com.revrobotics.spark.SparkFlex {
+    private static final int CONFIG_VERSION = 1; // Bump when the constructors change what they configure
+
     private SparkFlexConfig config;
+    private final AtomicReference<IdleMode> idleMode = new AtomicReference<>(); // Null once a change has failed, so the next one is always sent
+    private final String idleModeKey;
+    private final AtomicInteger velocityPeriodMs = new AtomicInteger(-1); // -1 until set, and again once a change has failed
 
     /**
      * Creates a new CANSparkMax with the necessary configurations.
@@ -23,6 +30,8 @@ public class PearadoxSparkFlex extends com.revrobotics.spark.SparkFlex {
      */
     public PearadoxSparkFlex(int deviceId, MotorType m, IdleMode mode, int limit, boolean isInverted){
         super(deviceId, m);
+        idleMode.set(mode);
+        idleModeKey = "Spark " + deviceId + " IdleMode";
         config = new SparkFlexConfig();
         
         config
@@ -30,10 +39,7 @@ public class PearadoxSparkFlex extends com.revrobotics.spark.SparkFlex {
             .smartCurrentLimit(limit)
             .inverted(isInverted);
 
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-
-        String key = "Spark " + this.getDeviceId() + " Flashes";
-        Preferences.setDouble(key, Preferences.getDouble(key, 0) + 1);
+        configureIfChanged(m + " " + mode + " " + limit + " " + isInverted);
     }
 
     /**
@@ -52,6 +58,8 @@ public class PearadoxSparkFlex extends com.revrobotics.spark.SparkFlex {
     public PearadoxSparkFlex(int deviceId, MotorType m, IdleMode mode, int limit, boolean isInverted, 
         double kP, double kI, double kD, double minOutput, double maxOutput){
         super(deviceId, m);
+        idleMode.set(mode);
+        idleModeKey = "Spark " + deviceId + " IdleMode";
         config = new SparkFlexConfig();
 
         config
@@ -63,16 +71,65 @@ public class PearadoxSparkFlex extends com.revrobotics.spark.SparkFlex {
             .outputRange(minOutput, maxOutput)
             .iZone(2); // default from 2024 pearadox lib
 
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        
-        String key = "Spark " + this.getDeviceId() + " Flashes";
-        Preferences.setDouble(key, Preferences.getDouble(key, 0) + 1);
+        configureIfChanged(m + " " + mode + " " + limit + " " + isInverted + " " 
+            + kP + " " + kI + " " + kD + " " + minOutput + " " + maxOutput);
+    }
+
+    /**
+     * Resets and persists the configuration, unless the {@link ConfigCache} shows the controller
+     * already holds it. Even then the configuration is applied without the reset and flash, in case the
+     * controller was swapped or reset since.
+     * @param parameters The constructor parameters that make up the configuration.
+     */
+    private void configureIfChanged(String parameters) {
+        String device = "Spark " + getDeviceId();
+        String fingerprint = "FLEX v" + CONFIG_VERSION + " " + parameters;
+        if (ConfigCache.getInstance().matches(device, fingerprint)) {
+            super.configure(config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+            return;
+        }
+
+        if (super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters) == REVLibError.kOk) {
+            ConfigCache.getInstance().recordFlash(device, fingerprint);
+        }
     }
 
-    public void setIdleMode(IdleMode mode) {
-        if (super.configAccessor.getIdleMode() != mode) {
-            config.idleMode(mode);
-            super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+    /**
+     * Queues an idle mode change on the {@link ConfigApplier}. The change is not persisted and returns
+     * without waiting for the controller.
+     * @param mode The idle mode (kBrake/kCoast).
+     * @return The handle for the change, or null if the controller is already in that mode.
+     */
+    public ConfigApplier.Request setIdleMode(IdleMode mode) {
+        if (idleMode.getAndSet(mode) == mode) {
+            return null;
         }
+        config.idleMode(mode);
+
+        SparkFlexConfig idleModeConfig = new SparkFlexConfig();
+        idleModeConfig.idleMode(mode);
+        return ConfigApplier.getInstance().submit(idleModeKey,
+            () -> super.configure(idleModeConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters) == REVLibError.kOk,
+            () -> idleMode.compareAndSet(mode, null)); // Unless a newer change has replaced it
+    }
+
+    /**
+     * Queues a change to how often the controller sends its velocity and applied output. The change is
+     * not persisted and returns without waiting for the controller.
+     * @param periodMs The status period, in milliseconds.
+     * @return The handle for the change, or null if the controller already uses that period.
+     */
+    public ConfigApplier.Request setVelocitySignalPeriodMs(int periodMs) {
+        if (velocityPeriodMs.getAndSet(periodMs) == periodMs) {
+            return null;
+        }
+
+        SparkFlexConfig signalConfig = new SparkFlexConfig();
+        signalConfig.signals
+            .primaryEncoderVelocityPeriodMs(periodMs)
+            .appliedOutputPeriodMs(periodMs);
+        return ConfigApplier.getInstance().submit("Spark " + getDeviceId() + " VelocityPeriod",
+            () -> super.configure(signalConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters) == REVLibError.kOk,
+            () -> velocityPeriodMs.compareAndSet(periodMs, -1)); // Unless a newer change has replaced it
     }
-}
\ No newline at end of file
+}
@@ -4,16 +4,21 @@
 
 package frc.lib.drivers;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.revrobotics.REVLibError;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 import com.revrobotics.spark.config.SparkMaxConfig;
 import com.revrobotics.spark.config.ClosedLoopConfig.FeedbackSensor;
 
-import edu.wpi.first.wpilibj.Preferences;
-
 /** Add your docs here. */
 public class PearadoxSparkMax extends SparkMax {
+    private static final int CONFIG_VERSION = 1; // Bump when the constructors change what they configure
+
     private SparkMaxConfig config;
+    private final AtomicReference<IdleMode> idleMode = new AtomicReference<>(); // Null once a change has failed, so the next one is always sent
+    private final String idleModeKey;
     
     /**
      * Creates a new CANSparkMax with the necessary configurations.
@@ -25,6 +30,8 @@ public class PearadoxSparkMax extends SparkMax {
      */
     public PearadoxSparkMax(int deviceId, MotorType m, IdleMode mode, int limit, boolean isInverted){
         super(deviceId, m);
+        idleMode.set(mode);
+        idleModeKey = "Spark " + deviceId + " IdleMode";
         config = new SparkMaxConfig();
 
         config
@@ -35,10 +42,7 @@ public class PearadoxSparkMax extends SparkMax {
         //     .positionConversionFactor(1000)
         //     .velocityConversionFactor(1000);
 
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-
-        String key = "Spark " + this.getDeviceId() + " Flashes";
-        Preferences.setDouble(key, Preferences.getDouble(key, 0) + 1);
+        configureIfChanged(m + " " + mode + " " + limit + " " + isInverted);
     }
 
     /**
@@ -57,6 +61,8 @@ public class PearadoxSparkMax extends SparkMax {
     public PearadoxSparkMax(int deviceId, MotorType m, IdleMode mode, int limit, boolean isInverted, 
         double kP, double kI, double kD, double minOutput, double maxOutput){
         super(deviceId, m);
+        idleMode.set(mode);
+        idleModeKey = "Spark " + deviceId + " IdleMode";
         config = new SparkMaxConfig();
 
         config
@@ -71,16 +77,87 @@ public class PearadoxSparkMax extends SparkMax {
         //     .positionConversionFactor(1000)
         //     .velocityConversionFactor(1000);
 
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        configureIfChanged(m + " " + mode + " " + limit + " " + isInverted + " " 
+            + kP + " " + kI + " " + kD + " " + minOutput + " " + maxOutput);
+    }
+
+    /**
+     * Creates a new CANSparkMax that runs wrapped position control on its primary encoder, e.g. a
+     * swerve steering motor.
+     * @param deviceId The device ID.
+     * @param m The motor type (Brushed/Brushless).
+     * @param mode The idle mode (kBrake/kCoast).
+     * @param limit The current limit.
+     * @param isInverted The invert type of the motor.
+     * @param kP The proportional gain value.
+     * @param kI The integral gain value.
+     * @param kD The derivative gain value.
+     * @param positionConversionFactor Converts motor rotations to the position units.
+     * @param velocityConversionFactor Converts motor RPM to the velocity units.
+     * @param minInput The lowest position, which wraps around to maxInput.
+     * @param maxInput The highest position, which wraps around to minInput.
+     */
+    public PearadoxSparkMax(int deviceId, MotorType m, IdleMode mode, int limit, boolean isInverted, 
+        double kP, double kI, double kD, double positionConversionFactor, double velocityConversionFactor,
+        double minInput, double maxInput){
+        super(deviceId, m);
+        idleMode.set(mode);
+        idleModeKey = "Spark " + deviceId + " IdleMode";
+        config = new SparkMaxConfig();
+
+        config
+            .idleMode(mode)
+            .smartCurrentLimit(limit)
+            .inverted(isInverted);
+        config.encoder
+            .positionConversionFactor(positionConversionFactor)
+            .velocityConversionFactor(velocityConversionFactor);
+        config.closedLoop
+            .feedbackSensor(FeedbackSensor.kPrimaryEncoder)
+            .pid(kP, kI, kD)
+            .positionWrappingEnabled(true)
+            .positionWrappingInputRange(minInput, maxInput);
 
-        String key = "Spark " + this.getDeviceId() + " Flashes";
-        Preferences.setDouble(key, Preferences.getDouble(key, 0) + 1);
+        configureIfChanged(m + " " + mode + " " + limit + " " + isInverted + " " 
+            + kP + " " + kI + " " + kD + " " + positionConversionFactor + " " + velocityConversionFactor + " "
+            + minInput + " " + maxInput);
     }
 
-    public void setIdleMode(IdleMode mode) {
-        if (super.configAccessor.getIdleMode() != mode) {
-            config.idleMode(mode);
-            super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+    /**
+     * Resets and persists the configuration, unless the {@link ConfigCache} shows the controller
+     * already holds it. Even then the configuration is applied without the reset and flash, in case the
+     * controller was swapped or reset since.
+     * @param parameters The constructor parameters that make up the configuration.
+     */
+    private void configureIfChanged(String parameters) {
+        String device = "Spark " + getDeviceId();
+        String fingerprint = "MAX v" + CONFIG_VERSION + " " + parameters;
+        if (ConfigCache.getInstance().matches(device, fingerprint)) {
+            super.configure(config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+            return;
         }
+
+        if (super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters) == REVLibError.kOk) {
+            ConfigCache.getInstance().recordFlash(device, fingerprint);
+        }
+    }
+
+    /**
+     * Queues an idle mode change on the {@link ConfigApplier}. The change is not persisted and returns
+     * without waiting for the controller.
+     * @param mode The idle mode (kBrake/kCoast).
+     * @return The handle for the change, or null if the controller is already in that mode.
+     */
+    public ConfigApplier.Request setIdleMode(IdleMode mode) {
+        if (idleMode.getAndSet(mode) == mode) {
+            return null;
+        }
+        config.idleMode(mode);
+
+        SparkMaxConfig idleModeConfig = new SparkMaxConfig();
+        idleModeConfig.idleMode(mode);
+        return ConfigApplier.getInstance().submit(idleModeKey,
+            () -> super.configure(idleModeConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters) == REVLibError.kOk,
+            () -> idleMode.compareAndSet(mode, null)); // Unless a newer change has replaced it
     }
 }
\ No newline at end of file
@@ -4,7 +4,11 @@
 
 package frc.lib.drivers;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.Slot1Configs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.InvertedValue;
@@ -12,6 +16,15 @@ import com.ctre.phoenix6.signals.NeutralModeValue;
 
 /** Add your docs here. */
 public class PearadoxTalonFX extends TalonFX{
+    private static final double CONFIG_TIMEOUT_SECONDS = 0.25;
+    private static final int CONFIG_VERSION = 1; // Bump when the constructors change what they configure
+
+    private final String device;
+
+    private final String currentLimitsKey;
+    private final String neutralModeKey;
+    private final AtomicReference<NeutralModeValue> neutralMode = new AtomicReference<>(); // Null once a change has failed, so the next one is always sent
+
     /**
      * Creates a new TalonFX with the necessary configurations.
      * @param deviceId The device ID.
@@ -32,33 +45,114 @@ public class PearadoxTalonFX extends TalonFX{
      * @param isInverted The invert type of the motor.
      */
     public PearadoxTalonFX(int deviceId, NeutralModeValue mode, int supply, int stator, boolean isInverted){
+        this(deviceId, mode, supply, stator, isInverted, new Slot0Configs(), new Slot1Configs());
+    }
+
+    /**
+     * Creates a new TalonFX with the necessary motor and closed loop configurations.
+     * @param deviceId The device ID.
+     * @param mode The neutral mode (Brake/Coast).
+     * @param limit The current limit.
+     * @param isInverted The invert type of the motor.
+     * @param slot0 The gains for slot 0.
+     * @param slot1 The gains for slot 1.
+     */
+    public PearadoxTalonFX(int deviceId, NeutralModeValue mode, int limit, boolean isInverted, 
+        Slot0Configs slot0, Slot1Configs slot1){
+        this(deviceId, mode, limit, limit, isInverted, slot0, slot1);
+    }
+
+    private PearadoxTalonFX(int deviceId, NeutralModeValue mode, int supply, int stator, boolean isInverted, 
+        Slot0Configs slot0, Slot1Configs slot1){
         super(deviceId);
+        device = "TalonFX " + deviceId;
+        currentLimitsKey = device + " CurrentLimits";
+        neutralModeKey = device + " NeutralMode";
+        neutralMode.set(mode);
+
         TalonFXConfiguration config = new TalonFXConfiguration();
 
         config.MotorOutput.NeutralMode = mode;
         config.MotorOutput.Inverted = isInverted 
             ? InvertedValue.Clockwise_Positive : InvertedValue.CounterClockwise_Positive;
-        config.CurrentLimits.StatorCurrentLimit = supply;
+        config.CurrentLimits.StatorCurrentLimit = stator;
         config.CurrentLimits.StatorCurrentLimitEnable = true;
-        config.CurrentLimits.SupplyCurrentLimit = stator;
+        config.CurrentLimits.SupplyCurrentLimit = supply;
         config.CurrentLimits.SupplyCurrentLimitEnable = true;
+        config.Slot0 = slot0;
+        config.Slot1 = slot1;
         // config.CurrentLimits.SupplyCurrentLowerLimit = limit / 2; // prevent breaker trips
         // config.CurrentLimits.SupplyCurrentLowerTime = 1;
 
-        this.getConfigurator().apply(config);
+        // Neutral mode changes at runtime, so it is left out of the fingerprint and only corrected
+        String fingerprint = "v" + CONFIG_VERSION + " " + supply + " " + stator + " " + isInverted 
+            + " " + slot0.serialize() + " " + slot1.serialize();
+        if (ConfigCache.getInstance().matches(device, fingerprint)) {
+            TalonFXConfiguration actual = new TalonFXConfiguration();
+            if (getConfigurator().refresh(actual, CONFIG_TIMEOUT_SECONDS).isOK() && holds(actual, config)) {
+                if (actual.MotorOutput.NeutralMode != mode) {
+                    ConfigApplier.getInstance().submit(neutralModeKey, () -> this.setNeutralMode(mode).isOK(), () -> neutralMode.compareAndSet(mode, null));
+                }
+                return;
+            }
+        }
+
+        if (this.getConfigurator().apply(config).isOK()) {
+            ConfigCache.getInstance().recordFlash(device, fingerprint);
+        }
     }
 
-    public void setCurrentLimit(double limit) {
-        setCurrentLimits(limit, limit);
+    /**
+     * Returns whether the motor holds the safety critical parts of a configuration: inversion, current
+     * limits and the closed loop gains. A swapped or reset motor fails this even if the cache matches.
+     */
+    private static boolean holds(TalonFXConfiguration actual, TalonFXConfiguration expected) {
+        return actual.MotorOutput.Inverted == expected.MotorOutput.Inverted
+            && actual.CurrentLimits.StatorCurrentLimitEnable == expected.CurrentLimits.StatorCurrentLimitEnable
+            && actual.CurrentLimits.SupplyCurrentLimitEnable == expected.CurrentLimits.SupplyCurrentLimitEnable
+            && near(actual.CurrentLimits.StatorCurrentLimit, expected.CurrentLimits.StatorCurrentLimit)
+            && near(actual.CurrentLimits.SupplyCurrentLimit, expected.CurrentLimits.SupplyCurrentLimit)
+            && near(actual.Slot0.kP, expected.Slot0.kP)
+            && near(actual.Slot0.kV, expected.Slot0.kV)
+            && near(actual.Slot1.kP, expected.Slot1.kP);
+    }
+
+    private static boolean near(double actual, double expected) {
+        return Math.abs(actual - expected) < 1e-3; // Configs round trip through the device's precision
+    }
+
+    public ConfigApplier.Request setCurrentLimit(double limit) {
+        return setCurrentLimits(limit, limit);
     }
     
-    public void setCurrentLimits(double supply, double stator) {
+    /**
+     * Queues a current limit change on the {@link ConfigApplier}; returns without waiting for the motor.
+     * @param supply The supply current limit.
+     * @param stator The stator current limit.
+     * @return The handle for the change.
+     */
+    public ConfigApplier.Request setCurrentLimits(double supply, double stator) {
         CurrentLimitsConfigs currentLimitsConfigs = new CurrentLimitsConfigs();
         currentLimitsConfigs.withSupplyCurrentLimitEnable(true);
         currentLimitsConfigs.withSupplyCurrentLimit(supply);
         currentLimitsConfigs.withStatorCurrentLimitEnable(true);
         currentLimitsConfigs.withStatorCurrentLimit(stator);
     
-        this.getConfigurator().apply(currentLimitsConfigs);
+        return ConfigApplier.getInstance().submit(currentLimitsKey, () -> {
+            ConfigCache.getInstance().invalidate(device); // Talon configs always persist
+            return this.getConfigurator().apply(currentLimitsConfigs, CONFIG_TIMEOUT_SECONDS).isOK();
+        });
+    }
+
+    /**
+     * Queues a neutral mode change on the {@link ConfigApplier}; returns without waiting for the motor.
+     * @param mode The neutral mode (Brake/Coast).
+     * @return The handle for the change, or null if the motor is already in that mode.
+     */
+    public ConfigApplier.Request setNeutralModeAsync(NeutralModeValue mode) {
+        if (neutralMode.getAndSet(mode) == mode) {
+            return null;
+        }
+        return ConfigApplier.getInstance().submit(neutralModeKey, () -> this.setNeutralMode(mode).isOK(), () -> neutralMode.compareAndSet(mode, null));
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.drivers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Owns the update rates of the Phoenix status signals. Each group of signals has a priority and a
+ * target rate for disabled, auto and teleop. Rates change when the robot mode changes, and lower
+ * priority groups are slowed down while the CAN bus is busy. Rate changes go through the
+ * {@link ConfigApplier}, so they never block the loop.
+ */
+public class StatusSignalScheduler {
+    private static final double MIN_FREQUENCY = 4.0; // Phoenix's slowest rate; 0 would turn the signal off
+    private static final double HIGH_LOAD = 0.8; // Start throttling at 80% bus utilization
+    private static final double LOW_LOAD = 0.65; // Stop throttling once it falls back below 65%
+    private static final int LOAD_SAMPLE_CYCLES = 10;
+
+    public enum Priority {
+        /** Never throttled, e.g. odometry. */
+        CRITICAL(1.0),
+        /** Halved under load. */
+        NORMAL(0.5),
+        /** Quartered under load, e.g. currents and applied outputs. */
+        LOW(0.25);
+
+        private final double throttleFactor;
+
+        Priority(double throttleFactor) {
+            this.throttleFactor = throttleFactor;
+        }
+    }
+
+    private enum Mode {
+        DISABLED, AUTO, TELEOP
+    }
+
+    /** Signals that share a priority and rates. */
+    private static class Group {
+        private final String key;
+        private final Priority priority;
+        private final double[] frequencies;
+        private final BaseStatusSignal[] signals;
+
+        private Group(String key, Priority priority, double[] frequencies, BaseStatusSignal[] signals) {
+            this.key = key;
+            this.priority = priority;
+            this.frequencies = frequencies;
+            this.signals = signals;
+        }
+
+        private double frequency(Mode mode, boolean throttled) {
+            double frequency = frequencies[mode.ordinal()];
+            return throttled ? Math.max(MIN_FREQUENCY, frequency * priority.throttleFactor) : frequency;
+        }
+    }
+
+    private final List<Group> groups = new ArrayList<>();
+    private Mode mode = Mode.DISABLED;
+    private boolean throttled = false;
+    private int cycle = 0;
+
+    private static final StatusSignalScheduler STATUS_SIGNAL_SCHEDULER = new StatusSignalScheduler();
+
+    public static StatusSignalScheduler getInstance() {
+        return STATUS_SIGNAL_SCHEDULER;
+    }
+
+    private StatusSignalScheduler() {}
+
+    /**
+     * Registers a group of signals and sets them to their disabled rate right away. Call before the
+     * device's optimizeBusUtilization(), which turns off every signal without a rate.
+     * @param name Identifies the group, e.g. "TalonFX 1 Odometry".
+     * @param priority How much the group may be slowed under load.
+     * @param disabledHz The rate while disabled.
+     * @param autoHz The rate in auto.
+     * @param teleopHz The rate in teleop and test.
+     * @param signals The signals in the group.
+     */
+    public void register(String name, Priority priority, double disabledHz, double autoHz, double teleopHz,
+        BaseStatusSignal... signals) {
+        Group group = new Group(name + " UpdateFrequency", priority, new double[] {disabledHz, autoHz, teleopHz}, signals);
+        BaseStatusSignal.setUpdateFrequencyForAll(disabledHz, signals);
+        synchronized (groups) {
+            groups.add(group);
+        }
+    }
+
+    /** Samples bus load and the robot mode, and queues rate changes. Call once per loop. */
+    public void update() {
+        Mode newMode = DriverStation.isDisabled() ? Mode.DISABLED
+            : DriverStation.isAutonomous() ? Mode.AUTO : Mode.TELEOP;
+
+        boolean newThrottled = throttled;
+        if (cycle++ % LOAD_SAMPLE_CYCLES == 0) {
+            double utilization = RobotController.getCANStatus().percentBusUtilization;
+            if (utilization > HIGH_LOAD) {
+                newThrottled = true;
+            } else if (utilization < LOW_LOAD) {
+                newThrottled = false;
+            }
+            Logger.recordOutput("CAN/Utilization", utilization);
+        }
+
+        if (newMode != mode || newThrottled != throttled) {
+            boolean modeChanged = newMode != mode;
+            synchronized (groups) {
+                for (Group group : groups) {
+                    // Load changes only move the groups that can be throttled
+                    if (modeChanged || group.priority != Priority.CRITICAL) {
+                        apply(group, group.frequency(newMode, newThrottled));
+                    }
+                }
+            }
+            mode = newMode;
+            throttled = newThrottled;
+        }
+        Logger.recordOutput("CAN/Throttled", throttled);
+    }
+
+    private void apply(Group group, double frequency) {
+        ConfigApplier.getInstance().submit(group.key, () ->
+            BaseStatusSignal.setUpdateFrequencyForAll(frequency, group.signals).isOK());
+    }
+}
@@ -0,0 +1,146 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A precomputed shot table indexed by distance to the target and the robot's velocity away from it.
+ * Each cell holds a pivot angle, a flywheel speed and a time of flight. The file is memory mapped, and
+ * {@link #sample} interpolates between the four surrounding cells without allocating.
+ *
+ * <p>File layout, big endian: magic, distance count, velocity count (ints); distance min and step,
+ * velocity min and step (doubles); then {@value #VALUES_PER_CELL} floats per cell, distance major.
+ * A cell with no solution holds NaN.
+ */
+public class AimingTable {
+    private static final int MAGIC = 0x41494d31; // "AIM1"
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + 4 * Double.BYTES;
+    private static final int VALUES_PER_CELL = 3;
+    private static final int CELL_BYTES = VALUES_PER_CELL * Float.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int distanceCount;
+    private final int velocityCount;
+    private final double distanceMin;
+    private final double distanceStep;
+    private final double velocityMin;
+    private final double velocityStep;
+
+    private double pivotAngleRad;
+    private double flywheelRPM;
+    private double timeOfFlight;
+
+    private AimingTable(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an aiming table");
+        }
+        distanceCount = buffer.getInt(4);
+        velocityCount = buffer.getInt(8);
+        distanceMin = buffer.getDouble(12);
+        distanceStep = buffer.getDouble(20);
+        velocityMin = buffer.getDouble(28);
+        velocityStep = buffer.getDouble(36);
+        if (distanceCount < 2 || velocityCount < 2
+            || buffer.capacity() != HEADER_BYTES + (long) distanceCount * velocityCount * CELL_BYTES) {
+            throw new IOException("Truncated aiming table");
+        }
+    }
+
+    /**
+     * Maps a table file.
+     * @param file The file written by {@link #write}.
+     * @throws IOException If the file is missing or malformed.
+     */
+    public static AimingTable load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new AimingTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a table file.
+     * @param file The file to write.
+     * @param distanceMin The first distance, in meters.
+     * @param distanceStep The spacing between distances.
+     * @param distanceCount The number of distances.
+     * @param velocityMin The first radial velocity, in meters per second.
+     * @param velocityStep The spacing between velocities.
+     * @param velocityCount The number of velocities.
+     * @param cells Pivot angle (radians), flywheel speed (RPM) and time of flight (seconds) for each
+     *     cell, distance major.
+     */
+    public static void write(File file, double distanceMin, double distanceStep, int distanceCount,
+        double velocityMin, double velocityStep, int velocityCount, float[] cells) throws IOException {
+        if (cells.length != distanceCount * velocityCount * VALUES_PER_CELL) {
+            throw new IllegalArgumentException("Expected " + distanceCount * velocityCount * VALUES_PER_CELL + " values");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + cells.length * Float.BYTES);
+        buffer.putInt(MAGIC).putInt(distanceCount).putInt(velocityCount);
+        buffer.putDouble(distanceMin).putDouble(distanceStep).putDouble(velocityMin).putDouble(velocityStep);
+        buffer.asFloatBuffer().put(cells);
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Interpolates a shot. On success the result is read with {@link #getPivotAngleRad()},
+     * {@link #getFlywheelRPM()} and {@link #getTimeOfFlight()}.
+     * @param distance The distance to the target, in meters.
+     * @param radialVelocity The robot's velocity away from the target, in meters per second.
+     * @return False if the point is outside the table or next to a cell with no solution.
+     */
+    public boolean sample(double distance, double radialVelocity) {
+        double x = (distance - distanceMin) / distanceStep;
+        double y = (radialVelocity - velocityMin) / velocityStep;
+        if (!(x >= 0 && x <= distanceCount - 1 && y >= 0 && y <= velocityCount - 1)) {
+            return false;
+        }
+        int i = Math.min((int) x, distanceCount - 2);
+        int j = Math.min((int) y, velocityCount - 2);
+        double tx = x - i;
+        double ty = y - j;
+
+        pivotAngleRad = interpolate(i, j, 0, tx, ty);
+        flywheelRPM = interpolate(i, j, 1, tx, ty);
+        timeOfFlight = interpolate(i, j, 2, tx, ty);
+        return !Double.isNaN(pivotAngleRad) && !Double.isNaN(flywheelRPM) && !Double.isNaN(timeOfFlight);
+    }
+
+    private double interpolate(int i, int j, int value, double tx, double ty) {
+        double v00 = get(i, j, value);
+        double v01 = get(i, j + 1, value);
+        double v10 = get(i + 1, j, value);
+        double v11 = get(i + 1, j + 1, value);
+        return (v00 * (1 - ty) + v01 * ty) * (1 - tx) + (v10 * (1 - ty) + v11 * ty) * tx;
+    }
+
+    private float get(int i, int j, int value) {
+        return buffer.getFloat(HEADER_BYTES + (i * velocityCount + j) * CELL_BYTES + value * Float.BYTES);
+    }
+
+    public double getPivotAngleRad() {
+        return pivotAngleRad;
+    }
+
+    public double getFlywheelRPM() {
+        return flywheelRPM;
+    }
+
+    public double getTimeOfFlight() {
+        return timeOfFlight;
+    }
+}
@@ -0,0 +1,27 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+/**
+ * Preallocated arrays for a logged input that is refilled every loop, such as a batch of odometry
+ * samples. AdvantageKit keeps the last logged array and compares the next one against it, so the same
+ * array can't be refilled on consecutive loops; two are used in turn instead. New arrays are only
+ * allocated when the length changes.
+ */
+public class AlternatingDoubleArray {
+    private double[] current = new double[0];
+    private double[] previous = new double[0];
+
+    /**
+     * Returns an array to fill, never the one returned by the last call.
+     * @param length The number of values it must hold.
+     */
+    public double[] next(int length) {
+        double[] array = previous.length == length ? previous : new double[length];
+        previous = current;
+        current = array;
+        return array;
+    }
+}
@@ -0,0 +1,131 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathPlannerPath;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Builds every PathPlanner auto in the deploy directory ahead of time, so choosing one at
+ * autonomousInit is a map lookup. Paths are loaded into PathPlannerLib's path cache and have their
+ * trajectories generated on a background thread, and the {@link PathPlannerAuto}s are then built on
+ * the main thread, since the command scheduler is not thread safe. The red alliance flips the
+ * generated trajectories when each path starts, rather than regenerating them.
+ */
+public class AutoCache {
+    private static final File AUTOS_DIRECTORY = new File(Filesystem.getDeployDirectory(), "pathplanner/autos");
+
+    private final RobotConfig robotConfig;
+    private volatile boolean loaded = false;
+    private volatile double loadMs = 0;
+    private Thread loader;
+
+    private final Map<String, Command> autos = new HashMap<>();
+    private boolean composed = false;
+
+    /**
+     * Creates a new AutoCache.
+     * @param robotConfig The config used to generate each path's trajectory.
+     */
+    public AutoCache(RobotConfig robotConfig) {
+        this.robotConfig = robotConfig;
+    }
+
+    /** Returns the names of the autos in the deploy directory, without the .auto extension. */
+    public static Set<String> getAutoNames() {
+        Set<String> names = new TreeSet<>();
+        File[] files = AUTOS_DIRECTORY.listFiles((directory, name) -> name.endsWith(".auto"));
+        if (files != null) {
+            for (File file : files) {
+                names.add(file.getName().substring(0, file.getName().length() - ".auto".length()));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Starts loading on the first call, then builds the autos once loading is done. Call from
+     * disabledPeriodic, after every named command is registered.
+     */
+    public void update() {
+        if (loader == null) {
+            loader = new Thread(this::load, "AutoCache");
+            loader.setDaemon(true);
+            loader.setPriority(Thread.MIN_PRIORITY);
+            loader.start();
+        }
+
+        if (!composed && loaded) {
+            long start = System.nanoTime();
+            for (String name : getAutoNames()) {
+                Command auto = build(name);
+                if (auto != null) {
+                    autos.put(name, auto);
+                }
+            }
+            composed = true;
+            Logger.recordOutput("AutoCache/LoadMs", loadMs);
+            Logger.recordOutput("AutoCache/ComposeMs", (System.nanoTime() - start) / 1e6);
+        }
+        Logger.recordOutput("AutoCache/Ready", composed);
+    }
+
+    /** Returns whether every auto is ready to run. */
+    public boolean isReady() {
+        return composed;
+    }
+
+    /**
+     * Returns the pre-built auto, building it now if the cache is not ready yet.
+     * @param name The auto's file name, without the .auto extension.
+     * @return The auto, or null if it does not exist or fails to build.
+     */
+    public Command get(String name) {
+        Command auto = autos.get(name);
+        if (auto == null && name != null) {
+            DriverStation.reportWarning("Auto " + name + " was not pre-built, building it now", false);
+            auto = build(name);
+        }
+        return auto;
+    }
+
+    private static Command build(String name) {
+        try {
+            return new PathPlannerAuto(name);
+        } catch (RuntimeException e) {
+            DriverStation.reportError("Failed to build auto " + name + ": " + e.getMessage(), e.getStackTrace());
+            return null;
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        for (String name : getAutoNames()) {
+            try {
+                // Loading caches each path in PathPlannerLib, along with the trajectory generated here
+                for (PathPlannerPath path : PathPlannerAuto.getPathGroupFromAutoFile(name)) {
+                    path.getIdealTrajectory(robotConfig);
+                }
+            } catch (Exception e) {
+                DriverStation.reportError("Failed to load auto " + name + ": " + e.getMessage(), e.getStackTrace());
+            }
+        }
+        loadMs = (System.nanoTime() - start) / 1e6;
+        loaded = true;
+    }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.util.Arrays;
+
+/** Fixed-bucket latency histogram. Recording and reading percentiles never allocate. */
+public class LatencyHistogram {
+    private final long bucketWidthMicros;
+    private final long[] counts;
+    private long total;
+    private long maxMicros;
+
+    /**
+     * Creates a new LatencyHistogram.
+     * @param bucketWidthMicros The width of each bucket.
+     * @param bucketCount The number of buckets. Anything past the last bucket is counted in it.
+     */
+    public LatencyHistogram(long bucketWidthMicros, int bucketCount) {
+        this.bucketWidthMicros = bucketWidthMicros;
+        counts = new long[bucketCount];
+    }
+
+    public void record(long micros) {
+        int bucket = (int) Math.min(Math.max(micros, 0) / bucketWidthMicros, counts.length - 1);
+        counts[bucket]++;
+        total++;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    /**
+     * Returns the upper edge of the bucket holding the given percentile.
+     * @param percentile The percentile, between 0 and 1.
+     * @return The latency in microseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentileMicros(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min((i + 1) * bucketWidthMicros, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        maxMicros = 0;
+    }
+}
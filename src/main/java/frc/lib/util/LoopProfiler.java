@@ -0,0 +1,242 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Times each phase of the robot loop into {@link LatencyHistogram}s and logs p50/p99/max per phase.
+ * Subsystems time their own periodic() with a {@link Section}; command execute() times are taken from
+ * the gaps between {@link CommandScheduler#onCommandExecute} callbacks. When a cycle runs past the
+ * loop period, the sections that took longest in that cycle are logged as the offenders. Each section
+ * also counts the bytes the main thread allocated inside it, which is what drives GC pauses.
+ */
+public class LoopProfiler {
+    private static final long LOOP_PERIOD_MICROS = 20_000;
+    private static final long BUCKET_WIDTH_MICROS = 100;
+    private static final int BUCKET_COUNT = 500; // 0 - 50 ms
+    private static final int MAX_OFFENDERS = 3;
+
+    /** A timed phase of the loop. */
+    public class Section {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram(BUCKET_WIDTH_MICROS, BUCKET_COUNT);
+        private final String p50Key;
+        private final String p99Key;
+        private final String maxKey;
+        private final String bytesKey;
+        private long startMicros;
+        private long startBytes;
+        private long cycleMicros;
+        private long cycleBytes;
+        private long totalBytes;
+
+        private Section(String name) {
+            this.name = name;
+            p50Key = "LoopTiming/" + name + "/P50Ms";
+            p99Key = "LoopTiming/" + name + "/P99Ms";
+            maxKey = "LoopTiming/" + name + "/MaxMs";
+            bytesKey = "LoopTiming/" + name + "/AllocatedBytes";
+        }
+
+        public void start() {
+            startMicros = now();
+            startBytes = allocatedBytes();
+        }
+
+        public void stop() {
+            long end = now();
+            long endBytes = allocatedBytes();
+            record(end - startMicros, endBytes - startBytes);
+            lastMarkMicros = end;
+            lastMarkBytes = endBytes;
+        }
+
+        private void record(long micros, long bytes) {
+            histogram.record(micros);
+            cycleMicros += micros;
+            cycleBytes += bytes;
+            totalBytes += bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Returns the bytes allocated in this section since the profiler was created. */
+        public long getTotalAllocatedBytes() {
+            return totalBytes;
+        }
+    }
+
+    private final List<Section> sections = new ArrayList<>();
+    private final Map<String, Section> commandSections = new HashMap<>(); // By name, since commands are often rebuilt
+    private final Section[] offenders = new Section[MAX_OFFENDERS];
+
+    private final Section scheduler;
+    private final Section overhead;
+    private final Section cycle;
+
+    private long lastMarkMicros;
+    private long lastMarkBytes;
+    private long loopStartMicros = -1;
+    private long loopStartBytes;
+    private long overrunCount = 0;
+    private boolean commandMarkBound = false;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+    private static final LoopProfiler LOOP_PROFILER = new LoopProfiler();
+
+    public static LoopProfiler getInstance() {
+        return LOOP_PROFILER;
+    }
+
+    private LoopProfiler() {
+        scheduler = section("CommandScheduler");
+        overhead = section("LoggingAndOverhead");
+        cycle = section("FullCycle");
+
+        CommandScheduler.getInstance().onCommandExecute(this::commandExecuted);
+    }
+
+    /**
+     * Returns a new section to time.
+     * @param name The name used in the log, e.g. "Drivetrain.periodic".
+     */
+    public Section section(String name) {
+        Section section = new Section(name);
+        sections.add(section);
+        return section;
+    }
+
+    /** Returns every section, including the built-in ones and one per executed command name. */
+    public List<Section> getSections() {
+        return Collections.unmodifiableList(sections);
+    }
+
+    /** Called right before the scheduler runs. Closes out the previous cycle. */
+    public void startLoop() {
+        long start = now();
+        long startBytes = allocatedBytes();
+        if (loopStartMicros >= 0) {
+            long cycleMicros = start - loopStartMicros;
+            long cycleBytes = startBytes - loopStartBytes;
+            cycle.record(cycleMicros, cycleBytes);
+            overhead.record(cycleMicros - scheduler.cycleMicros, cycleBytes - scheduler.cycleBytes);
+
+            if (cycleMicros > LOOP_PERIOD_MICROS) {
+                logOverrun(cycleMicros);
+            }
+            logPercentiles();
+        }
+
+        for (Section section : sections) {
+            section.cycleMicros = 0;
+            section.cycleBytes = 0;
+        }
+        loopStartMicros = start;
+        loopStartBytes = startBytes;
+        lastMarkMicros = start;
+        lastMarkBytes = startBytes;
+        if (!commandMarkBound) {
+            // Bound on the first loop, after the robot's own bindings, so button polling and the commands
+            // it schedules are not billed to the first command that executes
+            CommandScheduler.getInstance().getActiveButtonLoop().bind(this::mark);
+            commandMarkBound = true;
+        }
+        scheduler.start();
+    }
+
+    /** Called right after the scheduler runs. */
+    public void endLoop() {
+        scheduler.stop();
+    }
+
+    private void commandExecuted(Command command) {
+        Section section = commandSections.get(command.getName());
+        if (section == null) {
+            section = section(command.getName() + ".execute");
+            commandSections.put(command.getName(), section);
+        }
+        long end = now();
+        long endBytes = allocatedBytes();
+        section.record(end - lastMarkMicros, endBytes - lastMarkBytes);
+        lastMarkMicros = end;
+        lastMarkBytes = endBytes;
+    }
+
+    private void mark() {
+        lastMarkMicros = now();
+        lastMarkBytes = allocatedBytes();
+    }
+
+    private void logOverrun(long cycleMicros) {
+        for (int i = 0; i < MAX_OFFENDERS; i++) {
+            offenders[i] = null;
+        }
+        for (Section section : sections) {
+            if (section == cycle || section == scheduler) {
+                continue;
+            }
+            for (int i = 0; i < MAX_OFFENDERS; i++) {
+                if (offenders[i] == null || section.cycleMicros > offenders[i].cycleMicros) {
+                    System.arraycopy(offenders, i, offenders, i + 1, MAX_OFFENDERS - i - 1);
+                    offenders[i] = section;
+                    break;
+                }
+            }
+        }
+
+        overrunCount++;
+        String[] names = new String[MAX_OFFENDERS];
+        double[] times = new double[MAX_OFFENDERS];
+        for (int i = 0; i < MAX_OFFENDERS; i++) {
+            names[i] = offenders[i] == null ? "" : offenders[i].name;
+            times[i] = offenders[i] == null ? 0 : offenders[i].cycleMicros / 1000.0;
+        }
+        Logger.recordOutput("LoopTiming/Overrun/CycleMs", cycleMicros / 1000.0);
+        Logger.recordOutput("LoopTiming/Overrun/Count", overrunCount);
+        Logger.recordOutput("LoopTiming/Overrun/Offenders", names);
+        Logger.recordOutput("LoopTiming/Overrun/OffenderMs", times);
+    }
+
+    private void logPercentiles() {
+        for (Section section : sections) {
+            Logger.recordOutput(section.p50Key, section.histogram.getPercentileMicros(0.5) / 1000.0);
+            Logger.recordOutput(section.p99Key, section.histogram.getPercentileMicros(0.99) / 1000.0);
+            Logger.recordOutput(section.maxKey, section.histogram.getMaxMicros() / 1000.0);
+            Logger.recordOutput(section.bytesKey, section.cycleBytes);
+        }
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000;
+    }
+
+    /** Returns the bytes the current thread has allocated so far, or 0 if the JVM can't measure it. */
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN == null ? 0 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
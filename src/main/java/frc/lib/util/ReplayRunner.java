@@ -0,0 +1,265 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+
+/**
+ * Replays every log in a folder through the robot code and reports where the recomputed outputs differ
+ * from the recorded ones. Each log runs in its own JVM, so every replay gets its own HAL, and as many
+ * run at once as there are cores. Run with ./gradlew replayAll -PlogDir=&lt;folder&gt;.
+ *
+ * <p>Arguments: the log folder, then optionally the robot main class (default frc.robot.Main).
+ */
+public class ReplayRunner {
+    private static final String REAL_PREFIX = "/RealOutputs/";
+    private static final String REPLAY_PREFIX = "/ReplayOutputs/";
+    private static final double TOLERANCE = 1e-6;
+    private static final int MAX_REPORTED_KEYS = 10;
+
+    // Structs made only of doubles, compared with the same tolerance as doubles
+    private static final Set<String> DOUBLE_STRUCTS = Set.of(
+        "struct:Pose2d", "struct:Pose3d", "struct:Translation2d", "struct:Translation3d",
+        "struct:Rotation2d", "struct:Rotation3d", "struct:Transform2d", "struct:Transform3d",
+        "struct:Twist2d", "struct:Twist3d", "struct:Quaternion", "struct:ChassisSpeeds",
+        "struct:SwerveModuleState", "struct:SwerveModulePosition");
+
+    /** The outcome of one replay. */
+    private record Result(String log, int exitCode, double seconds, int keysCompared, Map<String, Integer> mismatches) {
+        boolean passed() {
+            return exitCode == 0 && mismatches.isEmpty();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <log folder> [robot main class]");
+            System.exit(2);
+        }
+        File folder = new File(args[0]);
+        String mainClass = args.length > 1 ? args[1] : "frc.robot.Main";
+
+        File[] logs = folder.listFiles((directory, name) -> name.endsWith(".wpilog") && !name.endsWith("_sim.wpilog"));
+        if (logs == null || logs.length == 0) {
+            System.err.println("No logs found in " + folder);
+            System.exit(2);
+        }
+        Arrays.sort(logs);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("Replaying " + logs.length + " logs on " + threads + " threads");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (File log : logs) {
+            futures.add(executor.submit(() -> replay(log, mainClass)));
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        boolean passed = writeSummary(results, new File(folder, "replay-summary.txt"));
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static Result replay(File log, String mainClass) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        String name = log.getName().substring(0, log.getName().length() - ".wpilog".length());
+
+        ProcessBuilder builder = new ProcessBuilder(
+            new File(System.getProperty("java.home"), "bin/java").getPath(),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            "-cp", System.getProperty("java.class.path"),
+            mainClass);
+        builder.environment().put("AKIT_LOG_PATH", log.getAbsolutePath()); // Picked up by LogFileUtil.findReplayLog()
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(new File(log.getParentFile(), name + "_replay.txt"));
+
+        int exitCode = builder.start().waitFor();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        File replayed = new File(log.getParentFile(), name + "_sim.wpilog");
+        if (exitCode != 0 || !replayed.isFile()) {
+            return new Result(log.getName(), exitCode == 0 ? -1 : exitCode, seconds, 0, Map.of());
+        }
+
+        Map<String, Integer> mismatches = new TreeMap<>();
+        int keysCompared = diff(replayed, mismatches);
+        return new Result(log.getName(), exitCode, seconds, keysCompared, mismatches);
+    }
+
+    /**
+     * Compares each recorded output with its recomputed counterpart. Outputs are only logged when they
+     * change, so both are held at their last value and compared at every time either one changes.
+     * @param replayed The replay's output log, which holds both.
+     * @param mismatches Receives the number of differing samples per key.
+     * @return The number of keys compared.
+     */
+    private static int diff(File replayed, Map<String, Integer> mismatches) throws IOException {
+        Map<Integer, String> names = new HashMap<>();
+        Map<String, String> types = new HashMap<>();
+        Map<String, TreeMap<Long, DataLogRecord>> real = new HashMap<>();
+        Map<String, TreeMap<Long, DataLogRecord>> recomputed = new HashMap<>();
+
+        for (DataLogRecord record : new DataLogReader(replayed.getPath())) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                names.put(start.entry, start.name);
+                types.put(start.name, start.type);
+                continue;
+            }
+            if (record.isControl()) {
+                continue;
+            }
+
+            String name = names.get(record.getEntry());
+            if (name == null) {
+                continue;
+            }
+            if (name.startsWith(REAL_PREFIX)) {
+                real.computeIfAbsent(name.substring(REAL_PREFIX.length()), key -> new TreeMap<>())
+                    .put(record.getTimestamp(), record);
+            } else if (name.startsWith(REPLAY_PREFIX)) {
+                recomputed.computeIfAbsent(name.substring(REPLAY_PREFIX.length()), key -> new TreeMap<>())
+                    .put(record.getTimestamp(), record);
+            }
+        }
+
+        for (Map.Entry<String, TreeMap<Long, DataLogRecord>> key : recomputed.entrySet()) {
+            if (!real.containsKey(key.getKey())) {
+                mismatches.put(key.getKey() + " (only in replay)", key.getValue().size());
+            }
+        }
+
+        int keysCompared = 0;
+        for (Map.Entry<String, TreeMap<Long, DataLogRecord>> key : real.entrySet()) {
+            TreeMap<Long, DataLogRecord> replayedSamples = recomputed.get(key.getKey());
+            if (replayedSamples == null) {
+                mismatches.put(key.getKey() + " (not recomputed)", key.getValue().size());
+                continue;
+            }
+
+            String type = types.getOrDefault(REAL_PREFIX + key.getKey(), "");
+            TreeSet<Long> timestamps = new TreeSet<>(key.getValue().keySet());
+            timestamps.addAll(replayedSamples.keySet());
+
+            int differing = 0;
+            for (long timestamp : timestamps) {
+                Map.Entry<Long, DataLogRecord> recorded = key.getValue().floorEntry(timestamp);
+                Map.Entry<Long, DataLogRecord> recalculated = replayedSamples.floorEntry(timestamp);
+                if (recorded == null || recalculated == null
+                    || !matches(type, recorded.getValue(), recalculated.getValue())) {
+                    differing++;
+                }
+            }
+            if (differing > 0) {
+                mismatches.put(key.getKey(), differing);
+            }
+            keysCompared++;
+        }
+        return keysCompared;
+    }
+
+    /** Returns whether two values match, within {@link #TOLERANCE} for floating point values. */
+    private static boolean matches(String type, DataLogRecord a, DataLogRecord b) {
+        switch (type) {
+            case "double":
+                return Math.abs(a.getDouble() - b.getDouble()) <= TOLERANCE;
+            case "float":
+                return Math.abs(a.getFloat() - b.getFloat()) <= TOLERANCE;
+            case "double[]":
+                return near(a.getDoubleArray(), b.getDoubleArray());
+            case "float[]": {
+                float[] x = a.getFloatArray();
+                float[] y = b.getFloatArray();
+                if (x.length != y.length) {
+                    return false;
+                }
+                for (int i = 0; i < x.length; i++) {
+                    if (Math.abs(x[i] - y[i]) > TOLERANCE) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            default:
+                if (DOUBLE_STRUCTS.contains(type.replace("[]", ""))) {
+                    return near(toDoubles(a.getRaw()), toDoubles(b.getRaw()));
+                }
+                return Arrays.equals(a.getRaw(), b.getRaw());
+        }
+    }
+
+    private static boolean near(double[] x, double[] y) {
+        if (x.length != y.length) {
+            return false;
+        }
+        for (int i = 0; i < x.length; i++) {
+            if (Math.abs(x[i] - y[i]) > TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double[] toDoubles(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN); // WPILib structs are little endian
+        double[] values = new double[raw.length / Double.BYTES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getDouble();
+        }
+        return values;
+    }
+
+    private static boolean writeSummary(List<Result> results, File file) throws IOException {
+        boolean allPassed = true;
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (Result result : results) {
+                allPassed &= result.passed();
+                String line = String.format("%s %s in %.1f s, %d keys compared, %d differ%s",
+                    result.passed() ? "PASS" : "FAIL",
+                    result.log(),
+                    result.seconds(),
+                    result.keysCompared(),
+                    result.mismatches().size(),
+                    result.exitCode() == 0 ? "" : " (replay exited with " + result.exitCode() + ")");
+                out.println(line);
+                System.out.println(line);
+
+                int reported = 0;
+                for (Map.Entry<String, Integer> mismatch : result.mismatches().entrySet()) {
+                    if (reported++ == MAX_REPORTED_KEYS) {
+                        out.println("    ...");
+                        break;
+                    }
+                    out.println("    " + mismatch.getKey() + ": " + mismatch.getValue() + " samples");
+                }
+            }
+        }
+        System.out.println("Summary written to " + file);
+        return allPassed;
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.wpilog.WPILOGWriter;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Writes the log to a USB stick on its own thread, starting a new file whenever the current one
+ * reaches a size limit. Entries wait in a bounded queue; when the writer falls behind, new entries are
+ * dropped and counted instead of blocking the logger. If the stick is removed or runs low on space, the
+ * most recent entries are kept in memory and written out once it is usable again.
+ */
+public class RotatingLogWriter implements LogDataReceiver {
+    private static final int QUEUE_CAPACITY = 250; // 5 s of loops
+    private static final int MEMORY_CAPACITY = 500; // 10 s of loops while the stick is unusable
+    private static final int CHECK_INTERVAL = 50; // Entries between storage checks
+
+    private final File directory;
+    private final long maxFileBytes;
+    private final long minFreeBytes;
+    private final String baseName;
+
+    private final BlockingQueue<LogTable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ArrayDeque<LogTable> memory = new ArrayDeque<>();
+    private Thread writerThread;
+
+    private WPILOGWriter writer; // Null while logging to memory only
+    private File currentFile;
+    private int part = 0;
+    private int entriesSinceCheck = 0;
+
+    private volatile long droppedCount = 0;
+    private volatile long writtenCount = 0;
+    private volatile double lastWriteMs = 0;
+    private volatile double maxWriteMs = 0;
+    private volatile boolean memoryOnly = true;
+
+    /**
+     * Creates a new RotatingLogWriter.
+     * @param directory The folder to write to, e.g. "/U/logs". Created if missing, but only inside an
+     *     existing mount point.
+     * @param maxFileBytes The size at which a new file is started.
+     * @param minFreeBytes The free space to leave on the stick.
+     */
+    public RotatingLogWriter(String directory, long maxFileBytes, long minFreeBytes) {
+        this.directory = new File(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.minFreeBytes = minFreeBytes;
+        baseName = "akit_" + new SimpleDateFormat("yy-MM-dd_HH-mm-ss").format(new Date());
+    }
+
+    @Override
+    public void start() {
+        writerThread = new Thread(this::run, "RotatingLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void end() {
+        if (writerThread != null) {
+            writerThread.interrupt();
+        }
+    }
+
+    @Override
+    public void putTable(LogTable table) {
+        if (!queue.offer(table)) {
+            droppedCount++;
+        }
+    }
+
+    /** Logs the queue depth, dropped entries and write latency. Call from the main loop. */
+    public void recordMetrics() {
+        Logger.recordOutput("LogWriter/QueueDepth", queue.size());
+        Logger.recordOutput("LogWriter/Dropped", droppedCount);
+        Logger.recordOutput("LogWriter/Written", writtenCount);
+        Logger.recordOutput("LogWriter/LastWriteMs", lastWriteMs);
+        Logger.recordOutput("LogWriter/MaxWriteMs", maxWriteMs);
+        Logger.recordOutput("LogWriter/MemoryOnly", memoryOnly);
+    }
+
+    private void run() {
+        checkStorage();
+        try {
+            while (true) {
+                LogTable table = queue.take();
+
+                if (++entriesSinceCheck >= CHECK_INTERVAL) {
+                    entriesSinceCheck = 0;
+                    checkStorage();
+                }
+
+                if (writer == null) {
+                    if (memory.size() >= MEMORY_CAPACITY) {
+                        memory.removeFirst();
+                    }
+                    memory.addLast(table);
+                } else {
+                    write(table);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Logger is stopping
+        } finally {
+            closeFile();
+        }
+    }
+
+    private void write(LogTable table) {
+        long start = System.nanoTime();
+        writer.putTable(table);
+        lastWriteMs = (System.nanoTime() - start) / 1e6;
+        maxWriteMs = Math.max(maxWriteMs, lastWriteMs);
+        writtenCount++;
+    }
+
+    private void checkStorage() {
+        boolean usable = isUsable();
+        if (writer != null && !usable) {
+            DriverStation.reportWarning("Log stick missing or full, logging to memory only", false);
+            closeFile();
+        } else if (writer != null && currentFile.length() >= maxFileBytes) {
+            closeFile();
+            openFile();
+        } else if (writer == null && usable) {
+            openFile();
+            while (!memory.isEmpty()) {
+                write(memory.removeFirst());
+            }
+        }
+        memoryOnly = writer == null;
+    }
+
+    private boolean isUsable() {
+        // The mount point only exists while a stick is mounted; creating it would log to internal flash
+        File mountPoint = directory.getParentFile();
+        if (mountPoint == null || !mountPoint.isDirectory()) {
+            return false;
+        }
+        if (!directory.isDirectory() && !directory.mkdir()) {
+            return false;
+        }
+        return directory.canWrite() && directory.getUsableSpace() >= minFreeBytes;
+    }
+
+    private void openFile() {
+        currentFile = new File(directory, baseName + "_" + part++ + ".wpilog");
+        writer = new WPILOGWriter(currentFile.getPath());
+        writer.start();
+    }
+
+    private void closeFile() {
+        if (writer != null) {
+            writer.end();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * Publishes dashboard values to NetworkTables only when they have changed by more than a per-topic
+ * epsilon, and no faster than a per-topic rate. Values are staged during the loop and sent together in
+ * {@link #flush()}, which also logs how many topics and bytes went out.
+ */
+public class TelemetryPublisher {
+    public static final double DASHBOARD_HZ = 10;
+    public static final double LOG_HZ = 50;
+
+    private static final int TOPIC_OVERHEAD_BYTES = 16; // Rough NT4 per-value framing
+
+    /** A staged value, sent by {@link TelemetryPublisher#flush()}. */
+    public abstract static class Topic {
+        private final double epsilon;
+        private final long periodMicros;
+        private long lastSentMicros;
+        private boolean sentOnce = false;
+        private boolean staged = false;
+
+        private Topic(double epsilon, double maxHz) {
+            this.epsilon = epsilon;
+            this.periodMicros = (long) (1e6 / maxHz);
+        }
+
+        /** Sends the staged value if it changed, returning the bytes sent or 0. */
+        private int flush(long nowMicros) {
+            if (!staged || (sentOnce && nowMicros - lastSentMicros < periodMicros) || !changed(epsilon)) {
+                return 0;
+            }
+            staged = false;
+            sentOnce = true;
+            lastSentMicros = nowMicros;
+            return send() + TOPIC_OVERHEAD_BYTES;
+        }
+
+        protected void stage() {
+            staged = true;
+        }
+
+        protected abstract boolean changed(double epsilon);
+
+        protected abstract int send();
+
+        protected abstract void close();
+    }
+
+    /** A double topic. */
+    public static class DoubleTopic extends Topic {
+        private final DoublePublisher publisher;
+        private double value;
+        private double sentValue = Double.NaN;
+
+        private DoubleTopic(DoublePublisher publisher, double epsilon, double maxHz) {
+            super(epsilon, maxHz);
+            this.publisher = publisher;
+        }
+
+        public void set(double value) {
+            this.value = value;
+            stage();
+        }
+
+        @Override
+        protected boolean changed(double epsilon) {
+            return Double.isNaN(sentValue) || Math.abs(value - sentValue) > epsilon;
+        }
+
+        @Override
+        protected int send() {
+            publisher.set(value);
+            sentValue = value;
+            return Double.BYTES;
+        }
+
+        @Override
+        protected void close() {
+            publisher.close();
+        }
+    }
+
+    /** A double array topic. The array passed to {@link #set} is copied, so it can be reused. */
+    public static class DoubleArrayTopic extends Topic {
+        private final DoubleArrayPublisher publisher;
+        private double[] value = new double[0];
+        private double[] sentValue = null;
+
+        private DoubleArrayTopic(DoubleArrayPublisher publisher, double epsilon, double maxHz) {
+            super(epsilon, maxHz);
+            this.publisher = publisher;
+        }
+
+        public void set(double[] value) {
+            if (this.value.length != value.length) {
+                this.value = new double[value.length];
+            }
+            System.arraycopy(value, 0, this.value, 0, value.length);
+            stage();
+        }
+
+        @Override
+        protected boolean changed(double epsilon) {
+            if (sentValue == null || sentValue.length != value.length) {
+                return true;
+            }
+            for (int i = 0; i < value.length; i++) {
+                if (Math.abs(value[i] - sentValue[i]) > epsilon) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        protected int send() {
+            publisher.set(value);
+            if (sentValue == null || sentValue.length != value.length) {
+                sentValue = new double[value.length];
+            }
+            System.arraycopy(value, 0, sentValue, 0, value.length);
+            return value.length * Double.BYTES;
+        }
+
+        @Override
+        protected void close() {
+            publisher.close();
+        }
+    }
+
+    private final List<Topic> topics = new ArrayList<>();
+    private long topicsSent = 0;
+    private long bytesSent = 0;
+
+    private static final TelemetryPublisher TELEMETRY_PUBLISHER = new TelemetryPublisher();
+
+    public static TelemetryPublisher getInstance() {
+        return TELEMETRY_PUBLISHER;
+    }
+
+    private TelemetryPublisher() {}
+
+    /**
+     * Creates a double topic.
+     * @param table The table to publish in.
+     * @param name The topic name.
+     * @param epsilon The smallest change worth sending.
+     * @param maxHz The most times per second to send, e.g. {@link #DASHBOARD_HZ}.
+     */
+    public DoubleTopic doubleTopic(NetworkTable table, String name, double epsilon, double maxHz) {
+        DoubleTopic topic = new DoubleTopic(table.getDoubleTopic(name).publish(), epsilon, maxHz);
+        topics.add(topic);
+        return topic;
+    }
+
+    /**
+     * Creates a double array topic.
+     * @param table The table to publish in.
+     * @param name The topic name.
+     * @param epsilon The smallest change in any element worth sending.
+     * @param maxHz The most times per second to send, e.g. {@link #DASHBOARD_HZ}.
+     */
+    public DoubleArrayTopic doubleArrayTopic(NetworkTable table, String name, double epsilon, double maxHz) {
+        DoubleArrayTopic topic = new DoubleArrayTopic(table.getDoubleArrayTopic(name).publish(), epsilon, maxHz);
+        topics.add(topic);
+        return topic;
+    }
+
+    /** Sends every staged value that is due and has changed. Call once per loop. */
+    public void flush() {
+        long nowMicros = System.nanoTime() / 1000;
+        int cycleTopics = 0;
+        int cycleBytes = 0;
+        for (int i = 0; i < topics.size(); i++) { // Indexed, so no iterator is allocated
+            int bytes = topics.get(i).flush(nowMicros);
+            if (bytes > 0) {
+                cycleTopics++;
+                cycleBytes += bytes;
+            }
+        }
+        topicsSent += cycleTopics;
+        bytesSent += cycleBytes;
+
+        Logger.recordOutput("Telemetry/TopicsSent", cycleTopics);
+        Logger.recordOutput("Telemetry/BytesSent", cycleBytes);
+        Logger.recordOutput("Telemetry/TotalTopicsSent", topicsSent);
+        Logger.recordOutput("Telemetry/TotalBytesSent", bytesSent);
+    }
+
+    /**
+     * Closes and forgets every topic and zeroes the totals. For tests that publish to a NetworkTables
+     * instance they close afterwards.
+     */
+    public void reset() {
+        for (int i = 0; i < topics.size(); i++) {
+            topics.get(i).close();
+        }
+        topics.clear();
+        topicsSent = 0;
+        bytesSent = 0;
+    }
+}
@@ -0,0 +1,115 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+
+import frc.lib.util.AimingTable;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.Constants.ShooterConstants;
+
+/**
+ * Builds the speaker {@link AimingTable} from a drag-free ballistic model, so the robot never solves
+ * a trajectory in the loop. Each distance gets a flywheel speed that rises with distance (raised
+ * further if the shot is out of reach), and the flattest pivot angle that reaches the speaker while
+ * the robot moves toward or away from it. Run with ./gradlew generateAimingTable.
+ */
+public class AimingTableGenerator {
+  private static final double GRAVITY = 9.81;
+  private static final double MIN_ANGLE = Math.toRadians(5);
+  private static final double MAX_ANGLE = Math.toRadians(85);
+  private static final double ANGLE_SEARCH_STEP = Math.toRadians(0.25);
+  private static final double RPM_SEARCH_STEP = 100;
+
+  public static void main(String[] args) throws IOException {
+    File output = new File(args.length > 0 ? args[0] : "src/main/deploy/" + ShooterConstants.AIMING_TABLE_FILE);
+
+    int distanceCount = (int) Math.round((ShooterConstants.AIMING_MAX_DISTANCE - ShooterConstants.AIMING_MIN_DISTANCE)
+      / ShooterConstants.AIMING_DISTANCE_STEP) + 1;
+    int velocityCount = (int) Math.round(2 * ShooterConstants.AIMING_MAX_RADIAL_VELOCITY
+      / ShooterConstants.AIMING_RADIAL_VELOCITY_STEP) + 1;
+
+    float[] cells = new float[distanceCount * velocityCount * 3];
+    int unsolved = 0;
+    for(int i = 0; i < distanceCount; i++){
+      double distance = ShooterConstants.AIMING_MIN_DISTANCE + i * ShooterConstants.AIMING_DISTANCE_STEP;
+      for(int j = 0; j < velocityCount; j++){
+        double radialVelocity = -ShooterConstants.AIMING_MAX_RADIAL_VELOCITY + j * ShooterConstants.AIMING_RADIAL_VELOCITY_STEP;
+        int cell = (i * velocityCount + j) * 3;
+        if(!solve(distance, radialVelocity, cells, cell)){
+          cells[cell] = cells[cell + 1] = cells[cell + 2] = Float.NaN;
+          unsolved++;
+        }
+      }
+    }
+
+    AimingTable.write(output,
+      ShooterConstants.AIMING_MIN_DISTANCE, ShooterConstants.AIMING_DISTANCE_STEP, distanceCount,
+      -ShooterConstants.AIMING_MAX_RADIAL_VELOCITY, ShooterConstants.AIMING_RADIAL_VELOCITY_STEP, velocityCount,
+      cells);
+    System.out.println("Wrote " + distanceCount + " x " + velocityCount + " cells (" + unsolved + " unreachable) to " + output);
+  }
+
+  /** Finds the shot for one cell, writing angle, RPM and time of flight at the given index. */
+  private static boolean solve(double distance, double radialVelocity, float[] cells, int cell){
+    double fraction = (distance - ShooterConstants.AIMING_MIN_DISTANCE)
+      / (ShooterConstants.AIMING_MAX_DISTANCE - ShooterConstants.AIMING_MIN_DISTANCE);
+    double scheduledRPM = ShooterConstants.MIN_SHOT_RPM + fraction * (ShooterConstants.MAX_SHOT_RPM - ShooterConstants.MIN_SHOT_RPM);
+
+    for(double rpm = scheduledRPM; rpm <= ShooterConstants.MAX_SHOT_RPM; rpm += RPM_SEARCH_STEP){
+      double exitSpeed = rpm / 60 * Math.PI * ShooterConstants.SHOOTER_WHEEL_DIAMETER * ShooterConstants.NOTE_EXIT_EFFICIENCY;
+      double angle = solveAngle(distance, radialVelocity, exitSpeed);
+      if(!Double.isNaN(angle)){
+        cells[cell] = (float) angle;
+        cells[cell + 1] = (float) rpm;
+        cells[cell + 2] = (float) timeOfFlight(distance, radialVelocity, exitSpeed, angle);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the flattest angle that puts the note at speaker height, or NaN if there is none. */
+  private static double solveAngle(double distance, double radialVelocity, double exitSpeed){
+    double low = MIN_ANGLE;
+    double lowError = heightError(distance, radialVelocity, exitSpeed, low);
+    for(double high = low + ANGLE_SEARCH_STEP; high <= MAX_ANGLE; high += ANGLE_SEARCH_STEP){
+      double highError = heightError(distance, radialVelocity, exitSpeed, high);
+      if(lowError < 0 && highError >= 0){
+        //Bisect within the bracket
+        for(int k = 0; k < 40; k++){
+          double middle = (low + high) / 2;
+          if(heightError(distance, radialVelocity, exitSpeed, middle) < 0){
+            low = middle;
+          }
+          else{
+            high = middle;
+          }
+        }
+        return (low + high) / 2;
+      }
+      low = high;
+      lowError = highError;
+    }
+    return Double.NaN;
+  }
+
+  /** Returns how far above the speaker the note passes, or negative infinity if it never gets there. */
+  private static double heightError(double distance, double radialVelocity, double exitSpeed, double angle){
+    double time = timeOfFlight(distance, radialVelocity, exitSpeed, angle);
+    if(Double.isNaN(time)){
+      return Double.NEGATIVE_INFINITY;
+    }
+    double height = ShooterConstants.FLOOR_TO_SHOOTER + exitSpeed * Math.sin(angle) * time - GRAVITY * time * time / 2;
+    return height - FieldConstants.SPEAKER_HEIGHT;
+  }
+
+  /** Returns the time for the note to cover the distance, with the robot's motion added, or NaN. */
+  private static double timeOfFlight(double distance, double radialVelocity, double exitSpeed, double angle){
+    double horizontalSpeed = exitSpeed * Math.cos(angle) - radialVelocity;
+    return horizontalSpeed > 0 ? distance / horizontalSpeed : Double.NaN;
+  }
+}
@@ -5,6 +5,11 @@
 package frc.robot;
 
 
+import com.pathplanner.lib.config.ModuleConfig;
+import com.pathplanner.lib.config.RobotConfig;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.Vector;
 import edu.wpi.first.math.geometry.Rotation3d;
@@ -13,7 +18,9 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotBase;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide numerical or boolean
@@ -24,6 +31,21 @@ import edu.wpi.first.math.util.Units;
  * constants are needed, to reduce verbosity.
  */
 public final class Constants {
+  public static final class AdvantageKitConstants {
+    public static enum Mode {
+      /** Running on a real robot. */
+      REAL,
+      /** Running a physics simulator. */
+      SIM,
+      /** Replaying from a log file. */
+      REPLAY
+    }
+
+    //Mode to use when not running on a real robot; a log passed in AKIT_LOG_PATH (e.g. by ReplayRunner) forces replay
+    public static final Mode SIM_MODE = System.getenv("AKIT_LOG_PATH") != null ? Mode.REPLAY : Mode.SIM;
+    public static final Mode CURRENT_MODE = RobotBase.isReal() ? Mode.REAL : SIM_MODE;
+  }
+
   public static class IOConstants {
     public static final int DRIVER_CONTROLLER_PORT = 0;
     public static final int OP_CONTROLLER_PORT = 1;
@@ -98,10 +120,59 @@ public final class Constants {
     public static final Vector<N3> ODOMETRY_STD_DEV = VecBuilder.fill(0.1, 0.1, 0.1);
 
     public static final double kS_PERCENT = 0.035;
-    public static final double kP_PERCENT = 0.009;
+
+    //Drive velocity control, in TalonFX rotor units (rotations)
+    public static enum DriveControlMode {
+      /** Duty cycle scaled by DRIVETRAIN_MAX_SPEED. */
+      OPEN_LOOP,
+      /** VelocityVoltage with slot 0 gains. */
+      VELOCITY_VOLTAGE,
+      /** VelocityTorqueCurrentFOC with slot 1 gains. Needs Phoenix Pro. */
+      VELOCITY_TORQUE_CURRENT
+    }
+
+    //Stay open loop until the drive gains below are measured with SysId
+    public static final DriveControlMode TELEOP_DRIVE_CONTROL_MODE = DriveControlMode.OPEN_LOOP;
+    public static final DriveControlMode AUTO_DRIVE_CONTROL_MODE = DriveControlMode.OPEN_LOOP;
+
+    //Closed loop drive gains, only used by the velocity modes
+    public static final double DRIVE_kS_VOLTS = kS_PERCENT * 12.0;
+    public static final double DRIVE_kV_VOLTS = 12.0 / 100.0; //Kraken X60 free speed is ~100 rps
+    public static final double DRIVE_kA_VOLTS = 0.01;
+    public static final double DRIVE_kP_VOLTS = 0.1;
+
+    public static final double DRIVE_kS_AMPS = 4.0;
+    public static final double DRIVE_kA_AMPS = 1.2;
+    public static final double DRIVE_kP_AMPS = 5.0;
 
     //exponent on joystick sensitivity 
     public static final int EXPONENT = 3;
+
+    //Simulation
+    public static final double ROBOT_MASS_KG = 52;
+    public static final double BUMPER_LENGTH = Units.inchesToMeters(34);
+    public static final double BUMPER_WIDTH = Units.inchesToMeters(36);
+    public static final double WHEEL_COF = 1.2;
+    public static final double DRIVE_FRICTION_VOLTAGE = 0.25;
+    public static final double TURN_FRICTION_VOLTAGE = 0.25;
+    public static final double TURN_INERTIA = 0.004; //kg m^2
+
+    //Setpoint generator
+    public static final double ROBOT_MOI = ROBOT_MASS_KG * (BUMPER_LENGTH * BUMPER_LENGTH + BUMPER_WIDTH * BUMPER_WIDTH) / 12; //kg m^2, uniform box
+    public static final double DRIVE_CURRENT_LIMIT = 45;
+    public static final double MAX_STEER_VELOCITY = Units.rotationsPerMinuteToRadiansPerSecond(5676) / TURN_MOTOR_GEAR_RATIO * 0.8; //rad/s, NEO free speed with margin
+
+    public static final RobotConfig ROBOT_CONFIG = new RobotConfig(
+        ROBOT_MASS_KG,
+        ROBOT_MOI,
+        new ModuleConfig(
+          WHEEL_DIAMETER / 2,
+          DRIVETRAIN_MAX_SPEED,
+          WHEEL_COF,
+          DCMotor.getKrakenX60(1).withReduction(DRIVE_MOTOR_GEAR_RATIO),
+          DRIVE_CURRENT_LIMIT,
+          1),
+        DRIVE_KINEMATICS.getModules());
   }
 
   public static final class IntakeConstants{
@@ -113,17 +184,32 @@ public final class Constants {
     public static final int RIGHT_SHOOTER_ID = 32;
     public static final int PIVOT_ID = 33;
 
-    public static final double LEFT_SHOOTER_kP = 0.3;
+    //Velocity gains are duty cycle per RPM of error; the feedforward carries the rest
+    public static final double LEFT_SHOOTER_kP = 0.0002;
     public static final double LEFT_SHOOTER_kI = 0;
     public static final double LEFT_SHOOTER_kD = 0;
 
-    public static final double RIGHT_SHOOTER_kP = 0.3;
+    public static final double RIGHT_SHOOTER_kP = 0.0002;
     public static final double RIGHT_SHOOTER_kI = 0;
     public static final double RIGHT_SHOOTER_kD = 0;
 
     public static final double SHOOTER_MIN_OUTPUT = -1.0;
     public static final double SHOOTER_MAX_OUTPUT = 1.0;
 
+    public static final int SHOOTER_CURRENT_LIMIT = 60;
+    public static final double SHOOTER_kV_VOLTS_PER_RPM = 12.0 / 6784; //Vortex free speed
+    public static final double SHOOTER_MOI = 0.002; //kg m^2, per side, for simulation
+
+    public static final double SPEAKER_LEFT_RPM = 4500;
+    public static final double SPEAKER_RIGHT_RPM = 3500; //Slower right wheel spins the note
+
+    public static final double SHOOTER_RPM_TOLERANCE = 100;
+    public static final double AT_SPEED_DEBOUNCE = 0.06; //3 loops
+
+    //Velocity status period while the shooter has a target, and while it is idle
+    public static final int SPINNING_SIGNAL_PERIOD_MS = 10;
+    public static final int IDLE_SIGNAL_PERIOD_MS = 100;
+
     //TODO Tune Pivot to Not Oscillate
     public static final double PIVOT_kP = 0.07;
     public static final double PIVOT_kI = 0.00008;
@@ -137,6 +223,19 @@ public final class Constants {
     public static final double SPEAKER_PIVOT_POSITION = 19.7;
 
     public static final double FLOOR_TO_SHOOTER = Units.inchesToMeters(7);
+
+    //Ballistics for the aiming table, rebuilt by ./gradlew generateAimingTable
+    public static final String AIMING_TABLE_FILE = "aiming_table.bin";
+    public static final double SHOOTER_WHEEL_DIAMETER = Units.inchesToMeters(4);
+    public static final double NOTE_EXIT_EFFICIENCY = 0.5; //Note speed over wheel surface speed
+    public static final double MIN_SHOT_RPM = 3000;
+    public static final double MAX_SHOT_RPM = 6000;
+
+    public static final double AIMING_MIN_DISTANCE = 1.0;
+    public static final double AIMING_MAX_DISTANCE = 7.0;
+    public static final double AIMING_DISTANCE_STEP = 0.05;
+    public static final double AIMING_MAX_RADIAL_VELOCITY = 4.0; //Away from the speaker is positive
+    public static final double AIMING_RADIAL_VELOCITY_STEP = 0.1;
   }
 
   public static final class TransportConstants{
@@ -144,6 +243,11 @@ public final class Constants {
     public static final int BOT_TRANSPORT_ID = 35;
 
     public static final int IR_SENSOR_CHANNEL = 9;
+
+    public static final int TRANSPORT_CURRENT_LIMIT = 30;
+
+    public static final double INTAKE_SPEED = 0.5;
+    public static final double FEED_SPEED = 1.0;
   }
 
   public static final class AmpBarConstants{
@@ -166,6 +270,13 @@ public final class Constants {
     public static final double FIELD_WIDTH = 8.21055;
 
     public static final double SPEAKER_HEIGHT = Units.inchesToMeters(80.515);
+    public static final Translation2d BLUE_SPEAKER = new Translation2d(0.0, 5.548); //Mirrored in x for red
+
+    public static final AprilTagFieldLayout APRILTAG_LAYOUT = AprilTagFieldLayout.loadField(AprilTagFields.k2024Crescendo);
+
+    //How far outside the field, or off the carpet, a vision pose may be before it is rejected
+    public static final double FIELD_BORDER_MARGIN = 0.5;
+    public static final double FIELD_Z_MARGIN = 0.75;
   }
 
   public static final class VisionConstants{
@@ -197,5 +308,15 @@ public final class Constants {
       
       public static final double AMBIGUITY_FILTER = 0.3;
       public static final double DISTANCE_FILTER = FieldConstants.FIELD_LENGTH / 2;
+
+      //PhotonVision cameras, with the robot to camera transform at the same index
+      public static final String[] PHOTON_CAMERA_NAMES = {"shooter"};
+      public static final Transform3d[] ROBOT_TO_PHOTON_CAMERAS = {ROBOT_TO_SHOOTER_LL};
+
+      public static final double PHOTON_FREQUENCY = 100.0; //Faster than any camera's frame rate
+
+      //Standard deviations at 1 m from a single tag, scaled by distance squared over tag count
+      public static final double PHOTON_XY_STD_DEV = 0.05;
+      public static final double PHOTON_THETA_STD_DEV = 0.1;
   }
 }
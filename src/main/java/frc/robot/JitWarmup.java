@@ -0,0 +1,132 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.pathplanner.lib.util.DriveFeedforwards;
+import com.pathplanner.lib.util.swerve.SwerveSetpoint;
+import com.pathplanner.lib.util.swerve.SwerveSetpointGenerator;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.lib.util.LoopProfiler;
+import frc.robot.Constants.SwerveConstants;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.subsystems.ModuleIO;
+import frc.robot.subsystems.SwerveModule;
+
+/**
+ * Runs the drive control path thousands of times while disabled, so the JIT has compiled it before the
+ * first enabled loop. It drives its own unlogged modules backed by the empty {@link ModuleIO}, which
+ * holds no hardware, so nothing reaches a motor controller or the log.
+ */
+public class JitWarmup {
+  private static final int TOTAL_ITERATIONS = 5000;
+  private static final int ITERATIONS_PER_LOOP = 100; //Spread over 50 disabled loops, about a second
+
+  private final SwerveModule[] modules;
+  private final SwerveSetpointGenerator setpointGenerator;
+  private SwerveSetpoint setpoint;
+  private final SwerveDrivePoseEstimator poseEstimator;
+  private final SwerveModulePosition[] positions = new SwerveModulePosition[4];
+  private final double[] statesBuffer = new double[8];
+  private final double[] setpointsBuffer = new double[8];
+
+  private int iterations = 0;
+
+  private final LoopProfiler.Section timer = LoopProfiler.getInstance().section("JitWarmup");
+
+  /** Creates a new JitWarmup. */
+  public JitWarmup() {
+    modules = new SwerveModule[] {
+      new SwerveModule(new ModuleIO() {}),
+      new SwerveModule(new ModuleIO() {}),
+      new SwerveModule(new ModuleIO() {}),
+      new SwerveModule(new ModuleIO() {})
+    };
+    for(int i = 0; i < modules.length; i++){
+      positions[i] = modules[i].getPosition();
+    }
+
+    setpointGenerator = new SwerveSetpointGenerator(SwerveConstants.ROBOT_CONFIG, SwerveConstants.MAX_STEER_VELOCITY);
+    setpoint = new SwerveSetpoint(new ChassisSpeeds(), getModuleStates(), DriveFeedforwards.zeros(4));
+
+    poseEstimator = new SwerveDrivePoseEstimator(
+      SwerveConstants.DRIVE_KINEMATICS,
+      new Rotation2d(),
+      positions,
+      new Pose2d(),
+      SwerveConstants.ODOMETRY_STD_DEV,
+      VisionConstants.LIMELIGHT_STD_DEV);
+  }
+
+  /** Returns whether every iteration has run. */
+  public boolean isDone(){
+    return iterations >= TOTAL_ITERATIONS;
+  }
+
+  /** Runs the next slice of iterations. Call from disabledPeriodic. */
+  public void update(){
+    if(isDone()){
+      return;
+    }
+
+    timer.start();
+    long start = System.nanoTime();
+    for(int i = 0; i < ITERATIONS_PER_LOOP; i++){
+      runIteration(iterations++);
+    }
+    double microsPerIteration = (System.nanoTime() - start) / 1e3 / ITERATIONS_PER_LOOP;
+
+    //The first slice runs interpreted, the last should be compiled
+    if(iterations == ITERATIONS_PER_LOOP){
+      Logger.recordOutput("Warmup/FirstSliceMicrosPerIteration", microsPerIteration);
+    }
+    if(isDone()){
+      Logger.recordOutput("Warmup/LastSliceMicrosPerIteration", microsPerIteration);
+    }
+    timer.stop();
+  }
+
+  private void runIteration(int iteration){
+    //Sweep the inputs so direction flips, wheel reversals and rotation all get exercised
+    double t = iteration * 0.02;
+    Rotation2d heading = Rotation2d.fromRadians(t);
+    ChassisSpeeds speeds = ChassisSpeeds.fromFieldRelativeSpeeds(
+      Math.sin(t) * SwerveConstants.TELE_DRIVE_MAX_SPEED,
+      Math.cos(1.3 * t) * SwerveConstants.TELE_DRIVE_MAX_SPEED,
+      Math.sin(0.7 * t) * SwerveConstants.TELE_DRIVE_MAX_ANGULAR_SPEED,
+      heading);
+
+    setpoint = setpointGenerator.generateSetpoint(setpoint, speeds, TimedRobot.kDefaultPeriod);
+    SwerveModuleState[] states = setpoint.moduleStates();
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, SwerveConstants.DRIVETRAIN_MAX_SPEED);
+
+    for(int i = 0; i < modules.length; i++){
+      modules[i].updateInputs();
+      modules[i].setDesiredState(states[i]);
+      modules[i].fillState(statesBuffer, 2 * i);
+      modules[i].fillSetpoint(setpointsBuffer, 2 * i);
+      positions[i] = modules[i].getPosition();
+    }
+    poseEstimator.updateWithTime(t, heading, positions);
+    SwerveConstants.DRIVE_KINEMATICS.toChassisSpeeds(getModuleStates());
+  }
+
+  private SwerveModuleState[] getModuleStates(){
+    SwerveModuleState[] states = new SwerveModuleState[modules.length];
+    for(int i = 0; i < modules.length; i++){
+      states[i] = modules[i].getState();
+    }
+    return states;
+  }
+}
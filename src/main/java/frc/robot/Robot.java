@@ -6,6 +6,7 @@ package frc.robot;
 
 import java.io.IOException;
 
+import org.ironmaple.simulation.SimulatedArena;
 import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
@@ -16,8 +17,16 @@ import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 import edu.wpi.first.net.PortForwarder;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.drivers.ConfigCache;
+import frc.lib.drivers.DeviceInitializer;
+import frc.lib.drivers.StatusSignalScheduler;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.RotatingLogWriter;
+import frc.lib.util.TelemetryPublisher;
+import frc.robot.Constants.AdvantageKitConstants;
 import frc.robot.Constants.VisionConstants;
 import frc.robot.subsystems.Drivetrain;
 
@@ -28,8 +37,18 @@ import frc.robot.subsystems.Drivetrain;
  * project.
  */
 public class Robot extends LoggedRobot {
+  private final double startupTimestamp = Timer.getFPGATimestamp(); // Before any subsystem is constructed
   private Command m_autonomousCommand;
   private Drivetrain drivetrain = Drivetrain.getInstance();
+  private LoopProfiler loopProfiler = LoopProfiler.getInstance();
+  private final LoopProfiler.Section signalTimer = loopProfiler.section("StatusSignalScheduler.update");
+  private final LoopProfiler.Section telemetryTimer = loopProfiler.section("TelemetryPublisher.flush");
+  private final LoopProfiler.Section logMetricsTimer = loopProfiler.section("LogWriter.recordMetrics");
+  private JitWarmup jitWarmup;
+  private RotatingLogWriter logWriter; // Only on the real robot
+
+  private static final long LOG_FILE_BYTES = 64L * 1024 * 1024;
+  private static final long LOG_MIN_FREE_BYTES = 256L * 1024 * 1024;
   private static final NetworkTable llTable = NetworkTableInstance.getDefault().getTable(VisionConstants.LL_NAME);
 
 
@@ -47,16 +66,30 @@ public class Robot extends LoggedRobot {
 
     Logger.recordMetadata("ProjectName", "MyProject"); // Set a metadata value
 
-    if (isReal()) {
-        //Logger.addDataReceiver(new WPILOGWriter("/media/sda1/")); // Log to a USB stick ("/U/logs")
+    switch (AdvantageKitConstants.CURRENT_MODE) {
+      case REAL:
+        logWriter = new RotatingLogWriter("/U/logs", LOG_FILE_BYTES, LOG_MIN_FREE_BYTES); // Log to a USB stick off the main thread
+        Logger.addDataReceiver(logWriter);
         Logger.addDataReceiver(new NT4Publisher()); // Publish data to NetworkTables 
         // new PowerDistribution(1, ModuleType.kRev); // Enables power distribution logging
-    } 
-    else {
+        break;
+
+      case SIM:
+        if (System.getenv("HEADLESS_SIM") != null) {
+            setUseTiming(false); // Physics steps a fixed dt per loop, so simulated matches can run faster than real time
+            Logger.addDataReceiver(new WPILOGWriter());
+        }
+        else {
+            Logger.addDataReceiver(new NT4Publisher());
+        }
+        break;
+
+      case REPLAY:
         setUseTiming(false); // Run as fast as possible
         String logPath = LogFileUtil.findReplayLog(); // Pull the replay log from AdvantageScope (or prompt the user)
         Logger.setReplaySource(new WPILOGReader(logPath)); // Read replay log
         Logger.addDataReceiver(new WPILOGWriter(LogFileUtil.addPathSuffix(logPath, "_sim"))); // Save outputs to a new log
+        break;
     }
 
     // Logger.disableDeterministicTimestamps() // See "Deterministic Timestamps" in the "Understanding Data Flow" page
@@ -69,6 +102,14 @@ public class Robot extends LoggedRobot {
     } catch (IOException e) {
       e.printStackTrace();
     }
+
+    // Every device has been configured by now, so write the config cache and flash counters once
+    ConfigCache.getInstance().flush();
+
+    jitWarmup = new JitWarmup();
+
+    DeviceInitializer.logStates();
+    Logger.recordOutput("RobotInit/DurationMs", (Timer.getFPGATimestamp() - startupTimestamp) * 1000);
   }
 
   /**
@@ -84,7 +125,23 @@ public class Robot extends LoggedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    loopProfiler.startLoop();
     CommandScheduler.getInstance().run();
+    loopProfiler.endLoop();
+
+    signalTimer.start();
+    StatusSignalScheduler.getInstance().update();
+    signalTimer.stop();
+
+    telemetryTimer.start();
+    TelemetryPublisher.getInstance().flush();
+    telemetryTimer.stop();
+
+    if(logWriter != null){
+      logMetricsTimer.start();
+      logWriter.recordMetrics();
+      logMetricsTimer.stop();
+    }
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -94,7 +151,10 @@ public class Robot extends LoggedRobot {
   }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    m_robotContainer.updateAutoCache();
+    jitWarmup.update();
+  }
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   
   @Override
@@ -141,9 +201,7 @@ public class Robot extends LoggedRobot {
 
   /** This function is called periodically during operator control. */
   @Override
-  public void teleopPeriodic() {
-    // RobotContainer.poseEstimation.periodic();
-  }
+  public void teleopPeriodic() {}
 
   @Override
   public void testInit() {
@@ -161,5 +219,11 @@ public class Robot extends LoggedRobot {
 
   /** This function is called periodically whilst in simulation. */
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    if (drivetrain.getDriveSimulation() == null) {
+      return; // Replaying a log
+    }
+    SimulatedArena.getInstance().simulationPeriodic();
+    Logger.recordOutput("FieldSimulation/RobotPose", drivetrain.getDriveSimulation().getSimulatedDriveTrainPose());
+  }
 }
\ No newline at end of file
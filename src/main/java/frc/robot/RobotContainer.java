@@ -22,9 +22,15 @@ import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.lib.util.AutoCache;
 import frc.robot.Constants.IOConstants;
+import frc.robot.Constants.SwerveConstants;
 import frc.robot.commands.SwerveDrive;
 import frc.robot.subsystems.Drivetrain;
+import frc.robot.subsystems.PoseEstimation;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.Transport;
+import frc.robot.subsystems.Vision;
 
 /**
  * This class is where the bulk of the robot should be declared. Since Command-based is a
@@ -35,6 +41,8 @@ import frc.robot.subsystems.Drivetrain;
 public class RobotContainer {
   // The robot's subsystems and commands are defined here...
   public static final Drivetrain drivetrain = Drivetrain.getInstance();
+  public static final Shooter shooter = Shooter.getInstance();
+  public static final Transport transport = Transport.getInstance();
 
   //Driver Controls
   public static final XboxController driverController = new XboxController(IOConstants.DRIVER_CONTROLLER_PORT);
@@ -43,13 +51,18 @@ public class RobotContainer {
   
   //Operator Controls
   public static final XboxController opController = new XboxController(IOConstants.OP_CONTROLLER_PORT);
-  
+
+  private final JoystickButton spinUp_RB = new JoystickButton(opController, XboxController.Button.kRightBumper.value);
+  private final JoystickButton intake_LB = new JoystickButton(opController, XboxController.Button.kLeftBumper.value);
 
   //Pose Estimation
+  public static final PoseEstimation poseEstimation = PoseEstimation.getInstance();
+  public static final Vision vision = Vision.getInstance();
 
   //Shuffleboard
   public static final ShuffleboardTab autoTab = Shuffleboard.getTab("Auto");
-  private SendableChooser<Command> autoChooser;
+  private SendableChooser<String> autoChooser;
+  private final AutoCache autoCache = new AutoCache(SwerveConstants.ROBOT_CONFIG);
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. 
    * @throws IOException */
@@ -57,7 +70,21 @@ public class RobotContainer {
     registerNamedCommands();
     configureBindings();
     setDefaultCommands();
+    configureAutoChooser();
+  }
 
+  private void configureAutoChooser(){
+    autoChooser = new SendableChooser<>();
+    autoChooser.setDefaultOption("None", "");
+    for(String name : AutoCache.getAutoNames()){
+      autoChooser.addOption(name, name);
+    }
+    autoTab.add("Auto Chooser", autoChooser).withWidget(BuiltInWidgets.kComboBoxChooser);
+  }
+
+  /** Loads and builds the autos in the background. Called while disabled. */
+  public void updateAutoCache(){
+    autoCache.update();
   }
 
   /**
@@ -73,6 +100,11 @@ public class RobotContainer {
     //Driver Buttons
     resetHeading_Start.onTrue(new InstantCommand(drivetrain::zeroHeading, drivetrain));
 
+    //Operator Buttons
+    spinUp_RB.whileTrue(shooter.aimAtSpeaker());
+    spinUp_RB.and(shooter.atSpeed()).and(transport.hasNote()).onTrue(transport.feed().until(spinUp_RB.negate()));
+    intake_LB.whileTrue(transport.intake());
+
   }
 
   /**
@@ -88,7 +120,7 @@ public class RobotContainer {
     else{
       drivetrain.setHeading(-60);
     }
-    return autoChooser.getSelected();
+    return autoCache.get(autoChooser.getSelected());
   }
 
   public void registerNamedCommands(){
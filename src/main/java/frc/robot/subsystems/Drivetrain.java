@@ -4,28 +4,49 @@
 
 package frc.robot.subsystems;
 
-import java.text.DecimalFormat;
-
-import com.studica.frc.AHRS;
-import com.studica.frc.AHRS.NavXComType;
-
-import edu.wpi.first.math.filter.SlewRateLimiter;
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.KilogramSquareMeters;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Volts;
+
+import org.ironmaple.simulation.SimulatedArena;
+import org.ironmaple.simulation.drivesims.COTS;
+import org.ironmaple.simulation.drivesims.SwerveDriveSimulation;
+import org.ironmaple.simulation.drivesims.configs.DriveTrainSimulationConfig;
+import org.ironmaple.simulation.drivesims.configs.SwerveModuleSimulationConfig;
+import org.littletonrobotics.junction.Logger;
+
+import com.pathplanner.lib.auto.AutoBuilder;
+import com.pathplanner.lib.config.PIDConstants;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import com.pathplanner.lib.util.DriveFeedforwards;
+import com.pathplanner.lib.util.swerve.SwerveSetpoint;
+import com.pathplanner.lib.util.swerve.SwerveSetpointGenerator;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.GenericHID.RumbleType;
-import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
-import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.lib.drivers.DeviceInitializer;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.TelemetryPublisher;
 import frc.robot.RobotContainer;
+import frc.robot.Constants.AdvantageKitConstants;
 import frc.robot.Constants.SwerveConstants;
 
 public class Drivetrain extends SubsystemBase {
@@ -34,96 +55,155 @@ public class Drivetrain extends SubsystemBase {
   private SwerveModule leftBack;
   private SwerveModule rightBack;
 
-  private SlewRateLimiter frontLimiter;
-  private SlewRateLimiter sideLimiter;
-  private SlewRateLimiter turnLimiter;
+  private SwerveSetpointGenerator setpointGenerator;
+  private SwerveSetpoint previousSetpoint;
+  //Desaturated copies of the setpoint's states, so the generator's next input is left untouched
+  private final SwerveModuleState[] commandedStates = {
+    new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()
+  };
+
+  private GyroIO gyroIO;
+  private final GyroIOInputsAutoLogged gyroInputs = new GyroIOInputsAutoLogged();
+  private double integratedYawDegrees = 0.0; //Used in place of the gyro when it is not connected, e.g. in sim
+  private boolean headingZeroed = false;
+
+  private PoseEstimation poseEstimation = PoseEstimation.getInstance();
+  private SwerveModulePosition[] lastModulePositions;
+  private final SwerveModulePosition[] samplePositions = new SwerveModulePosition[4]; //Reused for each odometry sample
 
-  private AHRS gyro;
+  //Telemetry, published as raw numbers so nothing is formatted or allocated in the loop
+  public static final NetworkTable swerveTable = NetworkTableInstance.getDefault().getTable("Swerve");
+  private TelemetryPublisher.DoubleArrayTopic moduleStatesPublisher;
+  private TelemetryPublisher.DoubleArrayTopic moduleSetpointsPublisher;
+  private TelemetryPublisher.DoubleTopic robotAnglePublisher;
+  private TelemetryPublisher.DoubleTopic angularSpeedPublisher;
+  private final double[] moduleStatesBuffer = new double[8];
+  private final double[] moduleSetpointsBuffer = new double[8];
 
-  public static final ShuffleboardTab swerveTab = Shuffleboard.getTab("Swerve");
-  private GenericEntry leftFrontStateEntry;
-  private GenericEntry rightFrontStateEntry;
-  private GenericEntry leftBackStateEntry;
-  private GenericEntry rightBackStateEntry;
-  private GenericEntry robotAngleEntry;
-  private GenericEntry angularSpeedEntry;
+  private final LoopProfiler.Section periodicTimer = LoopProfiler.getInstance().section("Drivetrain.periodic");
 
-  private static final Drivetrain DRIVETRAIN = new Drivetrain();
+  private static SwerveDriveSimulation driveSimulation; //Only set in sim
+
+  private static final Drivetrain DRIVETRAIN = create();
 
   public static Drivetrain getInstance(){
     return DRIVETRAIN;
   }
 
+  private static Drivetrain create(){
+    switch(AdvantageKitConstants.CURRENT_MODE){
+      case REAL:
+        //Bring the modules up concurrently; each blocks on motor and CANcoder configuration.
+        //Only method references to other classes here: a lambda would compile to a method on Drivetrain,
+        //which the worker threads could not call until this static initializer finishes
+        DeviceInitializer.Device<GyroIO> gyro = DeviceInitializer.start("Gyro", GyroIONavX::new);
+        DeviceInitializer.Device<ModuleIO> leftFront = DeviceInitializer.start("LeftFront", ModuleIOReal::leftFront);
+        DeviceInitializer.Device<ModuleIO> rightFront = DeviceInitializer.start("RightFront", ModuleIOReal::rightFront);
+        DeviceInitializer.Device<ModuleIO> leftBack = DeviceInitializer.start("LeftBack", ModuleIOReal::leftBack);
+        DeviceInitializer.Device<ModuleIO> rightBack = DeviceInitializer.start("RightBack", ModuleIOReal::rightBack);
+
+        //A failed device is replaced with IO that does nothing so the rest of the robot still runs
+        return new Drivetrain(
+          gyro.get(new GyroIO() {}),
+          leftFront.get(new ModuleIO() {}),
+          rightFront.get(new ModuleIO() {}),
+          leftBack.get(new ModuleIO() {}),
+          rightBack.get(new ModuleIO() {}));
+
+      case SIM:
+        driveSimulation = new SwerveDriveSimulation(createSimulationConfig(), new Pose2d(3, 3, new Rotation2d()));
+        SimulatedArena.getInstance().addDriveTrainSimulation(driveSimulation);
+        return new Drivetrain(
+          new GyroIOSim(driveSimulation.getGyroSimulation()),
+          new ModuleIOSim(driveSimulation.getModules()[0]),
+          new ModuleIOSim(driveSimulation.getModules()[1]),
+          new ModuleIOSim(driveSimulation.getModules()[2]),
+          new ModuleIOSim(driveSimulation.getModules()[3]));
+
+      default: //Replay, inputs come from the log
+        return new Drivetrain(new GyroIO() {}, new ModuleIO() {}, new ModuleIO() {}, new ModuleIO() {}, new ModuleIO() {});
+    }
+  }
+
+  private static DriveTrainSimulationConfig createSimulationConfig(){
+    return DriveTrainSimulationConfig.Default()
+      .withRobotMass(Kilograms.of(SwerveConstants.ROBOT_MASS_KG))
+      .withBumperSize(Meters.of(SwerveConstants.BUMPER_LENGTH), Meters.of(SwerveConstants.BUMPER_WIDTH))
+      .withTrackLengthTrackWidth(Meters.of(SwerveConstants.WHEEL_BASE), Meters.of(SwerveConstants.TRACK_WIDTH))
+      .withGyro(COTS.ofNav2X())
+      .withSwerveModule(new SwerveModuleSimulationConfig(
+        DCMotor.getKrakenX60(1),
+        DCMotor.getNEO(1),
+        SwerveConstants.DRIVE_MOTOR_GEAR_RATIO,
+        SwerveConstants.TURN_MOTOR_GEAR_RATIO,
+        Volts.of(SwerveConstants.DRIVE_FRICTION_VOLTAGE),
+        Volts.of(SwerveConstants.TURN_FRICTION_VOLTAGE),
+        Meters.of(SwerveConstants.WHEEL_DIAMETER / 2),
+        KilogramSquareMeters.of(SwerveConstants.TURN_INERTIA),
+        SwerveConstants.WHEEL_COF));
+  }
+
+  /** Returns the physics simulation of the drivetrain, or null when not simulating. */
+  public SwerveDriveSimulation getDriveSimulation(){
+    return driveSimulation;
+  }
+
   /** Creates a new SwerveDrivetrain. */
-  public Drivetrain() {
-    new Thread(() -> {
-      try{
-        Thread.sleep(1000);
-        zeroHeading();
-      }
-      catch(Exception e){}
-    }).start();
-
-    leftFront = new SwerveModule(
-      SwerveConstants.LEFT_FRONT_DRIVE_ID, 
-      SwerveConstants.LEFT_FRONT_TURN_ID, 
-      false, 
-      false, 
-      SwerveConstants.LEFT_FRONT_CANCODER_ID, 
-      SwerveConstants.LEFT_FRONT_OFFSET);
-
-    rightFront = new SwerveModule(
-      SwerveConstants.RIGHT_FRONT_DRIVE_ID, 
-      SwerveConstants.RIGHT_FRONT_TURN_ID, 
-      false, 
-      false, 
-      SwerveConstants.RIGHT_FRONT_CANCODER_ID, 
-      SwerveConstants.RIGHT_FRONT_OFFSET);
-
-    leftBack = new SwerveModule(
-      SwerveConstants.LEFT_BACK_DRIVE_ID, 
-      SwerveConstants.LEFT_BACK_TURN_ID, 
-      false, 
-      false, 
-      SwerveConstants.LEFT_BACK_CANCODER_ID, 
-      SwerveConstants.LEFT_BACK_OFFSET);
-    
-    rightBack = new SwerveModule(
-      SwerveConstants.RIGHT_BACK_DRIVE_ID, 
-      SwerveConstants.RIGHT_BACK_TURN_ID, 
-      false, 
-      false, 
-      SwerveConstants.RIGHT_BACK_CANCODER_ID, 
-      SwerveConstants.RIGHT_BACK_OFFSET);
-
-    frontLimiter = new SlewRateLimiter(SwerveConstants.TELE_DRIVE_MAX_ACCELERATION);
-    sideLimiter = new SlewRateLimiter(SwerveConstants.TELE_DRIVE_MAX_ACCELERATION);
-    turnLimiter = new SlewRateLimiter(SwerveConstants.TELE_DRIVE_MAX_ANGULAR_ACCELERATION);
-
-    gyro = new AHRS(NavXComType.kMXP_SPI);
-  
+  public Drivetrain(GyroIO gyroIO, ModuleIO leftFrontIO, ModuleIO rightFrontIO, ModuleIO leftBackIO, ModuleIO rightBackIO) {
+    this.gyroIO = gyroIO;
+    leftFront = new SwerveModule(leftFrontIO, "LeftFront");
+    rightFront = new SwerveModule(rightFrontIO, "RightFront");
+    leftBack = new SwerveModule(leftBackIO, "LeftBack");
+    rightBack = new SwerveModule(rightBackIO, "RightBack");
+
+    setpointGenerator = new SwerveSetpointGenerator(SwerveConstants.ROBOT_CONFIG, SwerveConstants.MAX_STEER_VELOCITY);
+    resetSetpoint();
+
+    lastModulePositions = getModulePositions();
+    poseEstimation.resetPose(getHeadingRotation2d(), lastModulePositions, new Pose2d());
+    OdometryThread.getInstance().start();
 
     
-    // AutoBuilder.configureHolonomic(
-    //   this::getPose,
-    //   this::resetPose,
-    //   this::getRobotRelativeSpeeds,
-    //   this::driveRobotRelative,
-    //   SwerveConstants.AUTO_CONFIG,
-    //   () -> isRedAlliance(),
-    //   this);
-
-    leftFrontStateEntry = swerveTab.add("Left Front Module State", leftFront.getState().toString()).withSize(4, 1).withPosition(0, 0).getEntry();
-    rightFrontStateEntry = swerveTab.add("Right Front Module State", rightFront.getState().toString()).withSize(4, 1).withPosition(0, 1).getEntry();
-    leftBackStateEntry = swerveTab.add("Left Back Module State", leftBack.getState().toString()).withSize(4, 1).withPosition(0, 2).getEntry();
-    rightBackStateEntry = swerveTab.add("Right Back Module State", rightBack.getState().toString()).withSize(4, 1).withPosition(0, 3).getEntry();
-    robotAngleEntry = swerveTab.add("Robot Angle", getHeading()).withSize(1, 1).withPosition(4, 1).getEntry();
-    angularSpeedEntry = swerveTab.add("Angular Speed", new DecimalFormat("#.00").format((-gyro.getRate() / 180)) + "\u03C0" + " rad/s").withSize(1, 1).withPosition(5, 1).getEntry();
+    AutoBuilder.configure(
+      this::getPose,
+      this::resetPose,
+      this::getRobotRelativeSpeeds,
+      (speeds, feedforwards) -> driveRobotRelative(speeds),
+      new PPHolonomicDriveController(
+        new PIDConstants(SwerveConstants.AUTO_kP_TRANSLATION, 0, 0),
+        new PIDConstants(SwerveConstants.AUTO_kP_ROTATION, 0, 0)),
+      SwerveConstants.ROBOT_CONFIG,
+      this::isRedAlliance,
+      this);
+
+    //[angle (rad), speed (m/s)] per module in LF, RF, LB, RB order, the AdvantageScope swerve format
+    TelemetryPublisher telemetry = TelemetryPublisher.getInstance();
+    moduleStatesPublisher = telemetry.doubleArrayTopic(swerveTable, "Module States", 0.01, TelemetryPublisher.DASHBOARD_HZ);
+    moduleSetpointsPublisher = telemetry.doubleArrayTopic(swerveTable, "Module Setpoints", 0.01, TelemetryPublisher.DASHBOARD_HZ);
+    robotAnglePublisher = telemetry.doubleTopic(swerveTable, "Robot Angle", 0.1, TelemetryPublisher.DASHBOARD_HZ);
+    angularSpeedPublisher = telemetry.doubleTopic(swerveTable, "Angular Speed", 0.01, TelemetryPublisher.DASHBOARD_HZ);
   }
 
   @Override
   public void periodic() {
-    // RobotContainer.poseEstimation.updateOdometry(getHeadingRotation2d(), getModulePositions());
+    periodicTimer.start();
+    updateOdometry();
+    Logger.recordOutput("Drive/OdometryDroppedSamples", OdometryThread.getInstance().getDroppedSampleCount());
+
+    //Zero once the gyro has finished its startup calibration, instead of after a fixed wait
+    if(!headingZeroed && gyroInputs.connected && !gyroInputs.calibrating){
+      zeroHeading();
+      headingZeroed = true;
+
+      //Re-seed the estimator at the new zero, or the next update would read the zeroing as a turn
+      OdometryThread.odometryLock.lock();
+      try{
+        poseEstimation.resetPose(Rotation2d.kZero, lastModulePositions, getPose());
+      }
+      finally{
+        OdometryThread.odometryLock.unlock();
+      }
+    }
 
     // SmarterDashboard.putString("Left Front Module State", leftFront.getState().toString(), "Drivetrain");
     // SmarterDashboard.putString("Right Front Module State", rightFront.getState().toString(), "Drivetrain");
@@ -133,12 +213,84 @@ public class Drivetrain extends SubsystemBase {
     // SmarterDashboard.putString("Angular Speed", new DecimalFormat("#.00").format((-gyro.getRate() / 180)) + "\u03C0" + " rad/s", "Drivetrain");
     // SmarterDashboard.putString("Odometry", getPose().toString(), "Drivetrain");
 
-    leftFrontStateEntry.setString(leftFront.getState().toString());
-    rightFrontStateEntry.setString(rightFront.getState().toString());
-    leftBackStateEntry.setString(leftBack.getState().toString());
-    rightBackStateEntry.setString(rightBack.getState().toString());
-    robotAngleEntry.setDouble(getHeading());
-    angularSpeedEntry.setString(new DecimalFormat("#.00").format((-gyro.getRate() / 180)) + "\u03C0" + "rad/s");
+    publishTelemetry();
+
+    periodicTimer.stop();
+  }
+
+  private void publishTelemetry(){
+    leftFront.fillState(moduleStatesBuffer, 0);
+    rightFront.fillState(moduleStatesBuffer, 2);
+    leftBack.fillState(moduleStatesBuffer, 4);
+    rightBack.fillState(moduleStatesBuffer, 6);
+    moduleStatesPublisher.set(moduleStatesBuffer);
+
+    leftFront.fillSetpoint(moduleSetpointsBuffer, 0);
+    rightFront.fillSetpoint(moduleSetpointsBuffer, 2);
+    leftBack.fillSetpoint(moduleSetpointsBuffer, 4);
+    rightBack.fillSetpoint(moduleSetpointsBuffer, 6);
+    moduleSetpointsPublisher.set(moduleSetpointsBuffer);
+
+    robotAnglePublisher.set(getHeading());
+    angularSpeedPublisher.set(Math.toRadians(gyroInputs.yawRateDegPerSec));
+  }
+
+  private void updateOdometry(){
+    OdometryThread.odometryLock.lock();
+    try{
+      gyroIO.updateInputs(gyroInputs);
+      Logger.processInputs("Drive/Gyro", gyroInputs);
+      leftFront.updateInputs();
+      rightFront.updateInputs();
+      leftBack.updateInputs();
+      rightBack.updateInputs();
+    }
+    finally{
+      OdometryThread.odometryLock.unlock();
+    }
+
+    double[] timestamps = leftFront.getOdometryTimestamps();
+    for(int i = 0; i < timestamps.length; i++){
+      samplePositions[0] = leftFront.getOdometryPositions()[i];
+      samplePositions[1] = rightFront.getOdometryPositions()[i];
+      samplePositions[2] = leftBack.getOdometryPositions()[i];
+      samplePositions[3] = rightBack.getOdometryPositions()[i];
+
+      Rotation2d heading;
+      if(gyroInputs.connected){
+        //The gyro samples on its own clock, so pair each wheel sample with the nearest yaw in time.
+        //Without a new sample this loop (e.g. right after a zero) the latest reading stands in
+        double yawDegrees = gyroInputs.odometryYawDegrees.length > 0
+          ? gyroInputs.odometryYawDegrees[nearestIndex(gyroInputs.odometryYawTimestamps, timestamps[i])]
+          : gyroInputs.yawDegrees;
+        integratedYawDegrees = yawDegrees; //Carry on from here if the gyro drops out
+        heading = Rotation2d.fromDegrees(yawDegrees);
+      }
+      else{
+        //Integrate the heading from the wheels when there is no gyro
+        Twist2d twist = SwerveConstants.DRIVE_KINEMATICS.toTwist2d(lastModulePositions, samplePositions);
+        integratedYawDegrees += Math.toDegrees(twist.dtheta);
+        heading = Rotation2d.fromDegrees(integratedYawDegrees);
+      }
+      //Copied, since the sample objects are overwritten next loop; the estimator keeps its own copies
+      for(int module = 0; module < 4; module++){
+        lastModulePositions[module].distanceMeters = samplePositions[module].distanceMeters;
+        lastModulePositions[module].angle = samplePositions[module].angle;
+      }
+
+      poseEstimation.updateOdometry(timestamps[i], heading, samplePositions);
+    }
+  }
+
+  private static int nearestIndex(double[] sortedTimestamps, double timestamp){
+    int nearest = 0;
+    for(int i = 1; i < sortedTimestamps.length; i++){
+      if(Math.abs(sortedTimestamps[i] - timestamp) > Math.abs(sortedTimestamps[nearest] - timestamp)){
+        break; //Sorted, so the error only grows from here
+      }
+      nearest = i;
+    }
+    return nearest;
   }
 
   public void swerveDrive(double frontSpeed, double sideSpeed, double turnSpeed, 
@@ -155,9 +307,9 @@ public class Drivetrain extends SubsystemBase {
     sideSpeed = Math.pow(sideSpeed, exponent) * exponent % 2 == 0 ? Math.signum(sideSpeed): 1;
     turnSpeed = Math.pow(turnSpeed, exponent) * exponent % 2 == 0 ? Math.signum(turnSpeed): 1;
 
-    frontSpeed = frontLimiter.calculate(frontSpeed) * SwerveConstants.TELE_DRIVE_MAX_SPEED;
-    sideSpeed = sideLimiter.calculate(sideSpeed) * SwerveConstants.TELE_DRIVE_MAX_SPEED;
-    turnSpeed = turnLimiter.calculate(turnSpeed) * SwerveConstants.TELE_DRIVE_MAX_ANGULAR_SPEED;
+    frontSpeed = frontSpeed * SwerveConstants.TELE_DRIVE_MAX_SPEED;
+    sideSpeed = sideSpeed * SwerveConstants.TELE_DRIVE_MAX_SPEED;
+    turnSpeed = turnSpeed * SwerveConstants.TELE_DRIVE_MAX_ANGULAR_SPEED;
 
     ChassisSpeeds chassisSpeeds;
     if(fieldOriented){
@@ -167,17 +319,58 @@ public class Drivetrain extends SubsystemBase {
       chassisSpeeds = new ChassisSpeeds(frontSpeed, sideSpeed, turnSpeed);
     }
 
-    SwerveModuleState[] moduleStates = SwerveConstants.DRIVE_KINEMATICS.toSwerveModuleStates(chassisSpeeds, centerOfRotation);
-
-    setModuleStates(moduleStates);
+    driveWithSetpointGenerator(chassisSpeeds, centerOfRotation, true);
   }
 
   public void swerveDrive(ChassisSpeeds chassisSpeeds, Translation2d centerOfRotation){ //Drive with field relative chassis speeds
     chassisSpeeds = ChassisSpeeds.fromFieldRelativeSpeeds(chassisSpeeds, getHeadingRotation2d());
 
-    SwerveModuleState[] moduleStates = SwerveConstants.DRIVE_KINEMATICS.toSwerveModuleStates(chassisSpeeds, centerOfRotation);
+    driveWithSetpointGenerator(chassisSpeeds, centerOfRotation, false);
+  }
+
+  /**
+   * Drives toward the robot relative speeds through the setpoint generator, which limits each
+   * module's steering rate, wheel acceleration and motor torque so the commanded states are reachable
+   * from the last loop's.
+   * @param chassisSpeeds The desired robot relative speeds.
+   * @param centerOfRotation The point to rotate about, relative to the robot center.
+   * @param teleopLimits Whether to also hold the request to the teleop acceleration limits.
+   */
+  private void driveWithSetpointGenerator(ChassisSpeeds chassisSpeeds, Translation2d centerOfRotation, boolean teleopLimits){
+    //The generator works about the robot center; moving the pivot adds omega x (center - pivot)
+    double vx = chassisSpeeds.vxMetersPerSecond + chassisSpeeds.omegaRadiansPerSecond * centerOfRotation.getY();
+    double vy = chassisSpeeds.vyMetersPerSecond - chassisSpeeds.omegaRadiansPerSecond * centerOfRotation.getX();
+    double omega = chassisSpeeds.omegaRadiansPerSecond;
+
+    if(teleopLimits){
+      //The generator only limits what the hardware can do, so the gentler driver limits are applied
+      //to its input. They are in full stick deflections per second, as the slew rate limiters had them
+      ChassisSpeeds last = previousSetpoint.robotRelativeSpeeds();
+      double maxSpeedChange = SwerveConstants.TELE_DRIVE_MAX_ACCELERATION * SwerveConstants.TELE_DRIVE_MAX_SPEED * TimedRobot.kDefaultPeriod;
+      double maxTurnChange = SwerveConstants.TELE_DRIVE_MAX_ANGULAR_ACCELERATION * SwerveConstants.TELE_DRIVE_MAX_ANGULAR_SPEED * TimedRobot.kDefaultPeriod;
+
+      double dvx = vx - last.vxMetersPerSecond;
+      double dvy = vy - last.vyMetersPerSecond;
+      double speedChange = Math.hypot(dvx, dvy);
+      double scale = speedChange > maxSpeedChange ? maxSpeedChange / speedChange : 1;
+      vx = last.vxMetersPerSecond + dvx * scale;
+      vy = last.vyMetersPerSecond + dvy * scale;
+      omega = last.omegaRadiansPerSecond + MathUtil.clamp(omega - last.omegaRadiansPerSecond, -maxTurnChange, maxTurnChange);
+    }
 
-    setModuleStates(moduleStates);
+    previousSetpoint = setpointGenerator.generateSetpoint(previousSetpoint, new ChassisSpeeds(vx, vy, omega), TimedRobot.kDefaultPeriod);
+
+    SwerveModuleState[] setpointStates = previousSetpoint.moduleStates();
+    for(int i = 0; i < commandedStates.length; i++){
+      commandedStates[i].speedMetersPerSecond = setpointStates[i].speedMetersPerSecond;
+      commandedStates[i].angle = setpointStates[i].angle;
+    }
+    setModuleStates(commandedStates);
+  }
+
+  /** Restarts the setpoint generator from the measured module states, e.g. after the modules were stopped. */
+  public void resetSetpoint(){
+    previousSetpoint = new SwerveSetpoint(getRobotRelativeSpeeds(), getModuleStates(), DriveFeedforwards.zeros(4));
   }
 
   public void setAllIdleMode(boolean brake){
@@ -196,28 +389,50 @@ public class Drivetrain extends SubsystemBase {
   }
   
   public void resetAllEncoders(){
-    leftFront.resetEncoders();
-    rightFront.resetEncoders();
-    leftBack.resetEncoders();
-    rightBack.resetEncoders();
+    OdometryThread.odometryLock.lock();
+    try{
+      leftFront.resetEncoders();
+      rightFront.resetEncoders();
+      leftBack.resetEncoders();
+      rightBack.resetEncoders();
+
+      SwerveModulePosition[] positions = getModulePositions();
+      for(SwerveModulePosition position : positions){
+        position.distanceMeters = 0; //drive signals may not reflect the reset until the next frame
+      }
+      lastModulePositions = positions;
+      poseEstimation.resetPose(getHeadingRotation2d(), positions, getPose());
+    }
+    finally{
+      OdometryThread.odometryLock.unlock();
+    }
   }
 
-  // public Pose2d getPose(){
-  //   return RobotContainer.poseEstimation.getEstimatedPose();
-    
-  // }
+  public Pose2d getPose(){
+    return poseEstimation.getEstimatedPose();
+  }
+
+  public void resetPose(Pose2d pose) {
+    if(driveSimulation != null){
+      driveSimulation.setSimulationWorldPose(pose);
+    }
 
-  // public void resetPose(Pose2d pose) {
-  //   RobotContainer.poseEstimation.resetPose(pose);
-  // }
+    OdometryThread.odometryLock.lock();
+    try{
+      lastModulePositions = getModulePositions();
+      poseEstimation.resetPose(getHeadingRotation2d(), lastModulePositions, pose);
+    }
+    finally{
+      OdometryThread.odometryLock.unlock();
+    }
+  }
 
   public ChassisSpeeds getRobotRelativeSpeeds(){
     return SwerveConstants.DRIVE_KINEMATICS.toChassisSpeeds(getModuleStates());
   }
 
   public void driveRobotRelative(ChassisSpeeds chassisSpeeds){
-    SwerveModuleState[] moduleStates = SwerveConstants.DRIVE_KINEMATICS.toSwerveModuleStates(chassisSpeeds);
-    setModuleStates(moduleStates);
+    driveWithSetpointGenerator(chassisSpeeds, Translation2d.kZero, false);
   }
 
   public ChassisSpeeds getFieldRelativeSpeeds(){
@@ -226,15 +441,18 @@ public class Drivetrain extends SubsystemBase {
   }
 
   public void zeroHeading(){
-    gyro.zeroYaw();
+    gyroIO.zeroYaw();
+    integratedYawDegrees = 0;
   }
 
   public void setHeading(double heading){
-    gyro.setAngleAdjustment(heading);
+    gyroIO.setAngleAdjustment(heading);
+    integratedYawDegrees = -heading;
   }
 
   public double getHeading(){
-    return Math.IEEEremainder(-gyro.getAngle(), 360); //clamp heading between -180 and 180
+    double yaw = gyroInputs.connected ? gyroInputs.yawDegrees : integratedYawDegrees;
+    return Math.IEEEremainder(yaw, 360); //clamp heading between -180 and 180
   }
 
   public Rotation2d getHeadingRotation2d(){
@@ -246,6 +464,7 @@ public class Drivetrain extends SubsystemBase {
     leftBack.stop();
     rightFront.stop();
     rightBack.stop();
+    resetSetpoint();
   }
 
   public void setModuleStates(SwerveModuleState[] moduleStates){
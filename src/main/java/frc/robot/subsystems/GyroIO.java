@@ -0,0 +1,30 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.AutoLog;
+
+/** Hardware abstraction for the drivetrain gyro. Yaw is counterclockwise positive. */
+public interface GyroIO {
+  @AutoLog
+  public static class GyroIOInputs {
+    public boolean connected = false;
+    public boolean calibrating = false;
+    public double yawDegrees = 0.0;
+    public double yawRateDegPerSec = 0.0;
+
+    public double[] odometryYawTimestamps = new double[] {};
+    public double[] odometryYawDegrees = new double[] {};
+  }
+
+  /** Updates the set of loggable inputs. */
+  public default void updateInputs(GyroIOInputs inputs) {}
+
+  /** Zeroes the yaw. */
+  public default void zeroYaw() {}
+
+  /** Sets the angle added to the gyro's clockwise positive reading. */
+  public default void setAngleAdjustment(double degrees) {}
+}
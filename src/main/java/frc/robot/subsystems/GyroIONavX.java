@@ -0,0 +1,53 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.studica.frc.AHRS;
+import com.studica.frc.AHRS.NavXComType;
+import com.studica.frc.AHRS.NavXUpdateRate;
+
+import frc.lib.util.AlternatingDoubleArray;
+
+/** NavX on the MXP SPI port. */
+public class GyroIONavX implements GyroIO {
+  private AHRS gyro;
+  private NavXSampler sampler;
+
+  private final AlternatingDoubleArray odometryYawTimestamps = new AlternatingDoubleArray();
+  private final AlternatingDoubleArray odometryYawDegrees = new AlternatingDoubleArray();
+
+  /** Creates a new GyroIONavX. */
+  public GyroIONavX() {
+    gyro = new AHRS(NavXComType.kMXP_SPI, NavXUpdateRate.k200Hz);
+
+    sampler = new NavXSampler(gyro);
+    sampler.start();
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.connected = gyro.isConnected();
+    inputs.calibrating = gyro.isCalibrating();
+    inputs.yawDegrees = sampler.getLatestYawDegrees();
+    inputs.yawRateDegPerSec = sampler.getLatestYawRateDegPerSec();
+
+    int count = sampler.available();
+    inputs.odometryYawTimestamps = odometryYawTimestamps.next(count);
+    inputs.odometryYawDegrees = odometryYawDegrees.next(count);
+    sampler.drain(inputs.odometryYawTimestamps, inputs.odometryYawDegrees);
+  }
+
+  @Override
+  public void zeroYaw() {
+    gyro.zeroYaw();
+    sampler.clear(); //Samples from before the zero would pull the heading back
+  }
+
+  @Override
+  public void setAngleAdjustment(double degrees) {
+    gyro.setAngleAdjustment(degrees);
+    sampler.clear();
+  }
+}
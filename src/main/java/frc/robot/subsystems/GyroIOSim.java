@@ -0,0 +1,52 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static edu.wpi.first.units.Units.DegreesPerSecond;
+
+import org.ironmaple.simulation.drivesims.GyroSimulation;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.lib.util.AlternatingDoubleArray;
+
+/** The NavX, simulated by maple-sim. */
+public class GyroIOSim implements GyroIO {
+  private GyroSimulation gyroSimulation;
+
+  private double angleAdjustmentDegrees = 0.0;
+
+  private final AlternatingDoubleArray odometryYawTimestamps = new AlternatingDoubleArray();
+  private final AlternatingDoubleArray odometryYawDegrees = new AlternatingDoubleArray();
+
+  /** Creates a new GyroIOSim. */
+  public GyroIOSim(GyroSimulation gyroSimulation) {
+    this.gyroSimulation = gyroSimulation;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.connected = true;
+    inputs.yawDegrees = gyroSimulation.getGyroReading().getDegrees() - angleAdjustmentDegrees;
+    inputs.yawRateDegPerSec = gyroSimulation.getMeasuredAngularVelocity().in(DegreesPerSecond);
+
+    Rotation2d[] readings = gyroSimulation.getCachedGyroReadings();
+    inputs.odometryYawTimestamps = odometryYawTimestamps.next(readings.length);
+    ModuleIOSim.fillSimulationOdometryTimestamps(inputs.odometryYawTimestamps);
+    inputs.odometryYawDegrees = odometryYawDegrees.next(readings.length);
+    for(int i = 0; i < readings.length; i++){
+      inputs.odometryYawDegrees[i] = readings[i].getDegrees() - angleAdjustmentDegrees;
+    }
+  }
+
+  @Override
+  public void zeroYaw() {
+    gyroSimulation.setRotation(new Rotation2d());
+  }
+
+  @Override
+  public void setAngleAdjustment(double degrees) {
+    angleAdjustmentDegrees = degrees;
+  }
+}
@@ -0,0 +1,62 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.AutoLog;
+
+import frc.robot.Constants.SwerveConstants.DriveControlMode;
+
+/**
+ * Hardware abstraction for one swerve module. The real and sim implementations fill the inputs from
+ * devices; during replay the empty default implementation is used and the inputs come from the log.
+ */
+public interface ModuleIO {
+  @AutoLog
+  public static class ModuleIOInputs {
+    public boolean driveConnected = false;
+    public double drivePositionMeters = 0.0;
+    public double driveVelocityMetersPerSec = 0.0;
+    public double driveAppliedOutput = 0.0;
+    public double driveCurrentAmps = 0.0;
+
+    public boolean absoluteEncoderConnected = false;
+    public double absoluteEncoderAngleRad = 0.0;
+
+    public double turnPositionRad = 0.0;
+    public double turnVelocityRadPerSec = 0.0;
+    public double turnAppliedOutput = 0.0;
+    public double turnCurrentAmps = 0.0;
+
+    public double[] odometryTimestamps = new double[] {};
+    public double[] odometryDrivePositionsMeters = new double[] {};
+    public double[] odometryTurnPositionsRad = new double[] {};
+  }
+
+  /** Updates the set of loggable inputs. */
+  public default void updateInputs(ModuleIOInputs inputs) {}
+
+  /** Runs the drive motor at the specified duty cycle. */
+  public default void setDriveOpenLoop(double output) {}
+
+  /**
+   * Runs the drive motor closed loop at the specified velocity.
+   * @param velocityMetersPerSec The velocity setpoint.
+   * @param accelerationMetersPerSecSq The setpoint's acceleration, used for feedforward.
+   * @param mode VELOCITY_VOLTAGE or VELOCITY_TORQUE_CURRENT.
+   */
+  public default void setDriveVelocity(double velocityMetersPerSec, double accelerationMetersPerSecSq, DriveControlMode mode) {}
+
+  /** Runs the turn motor at the specified duty cycle. */
+  public default void setTurnOpenLoop(double output) {}
+
+  /** Runs the turn motor to the specified angle, in radians. */
+  public default void setTurnPosition(double angleRad) {}
+
+  /** Sets the drive motor's neutral mode and the turn motor's idle mode. */
+  public default void setBrakeMode(boolean brake) {}
+
+  /** Zeroes the drive encoder and seeds the turn encoder from the absolute encoder. */
+  public default void resetEncoders() {}
+}
@@ -0,0 +1,213 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.Queue;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.Slot1Configs;
+import com.ctre.phoenix6.controls.DutyCycleOut;
+import com.ctre.phoenix6.controls.VelocityTorqueCurrentFOC;
+import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.ctre.phoenix6.signals.NeutralModeValue;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Current;
+import frc.lib.drivers.PearadoxSparkMax;
+import frc.lib.drivers.PearadoxTalonFX;
+import frc.lib.drivers.StatusSignalScheduler;
+import frc.lib.drivers.StatusSignalScheduler.Priority;
+import frc.lib.util.AlternatingDoubleArray;
+import frc.robot.Constants.SwerveConstants;
+import frc.robot.Constants.SwerveConstants.DriveControlMode;
+
+/** A swerve module with a TalonFX drive motor, a SPARK MAX turn motor and a CANcoder. */
+public class ModuleIOReal implements ModuleIO {
+  private PearadoxTalonFX driveMotor;
+  private PearadoxSparkMax turnMotor;
+
+  private RelativeEncoder turnEncoder;
+  private SparkClosedLoopController turnController;
+  private CANcoder absoluteEncoder;
+
+  private double absoluteEncoderOffset;
+
+  private StatusSignal<Angle> drivePosition;
+  private StatusSignal<AngularVelocity> driveVelocity;
+  private StatusSignal<Angle> absoluteEncoderAngle;
+  private StatusSignal<AngularVelocity> absoluteEncoderVelocity;
+  private StatusSignal<Current> driveCurrent;
+
+  private Queue<Double> timestampQueue;
+  private Queue<Double> drivePositionQueue;
+  private Queue<Double> turnPositionQueue;
+
+  private final AlternatingDoubleArray odometryTimestamps = new AlternatingDoubleArray();
+  private final AlternatingDoubleArray odometryDrivePositions = new AlternatingDoubleArray();
+  private final AlternatingDoubleArray odometryTurnPositions = new AlternatingDoubleArray();
+
+  private StatusSignal<Double> driveDutyCycle;
+
+  private DutyCycleOut driveMotorRequest = new DutyCycleOut(0.0);
+  private VelocityVoltage driveVelocityVoltageRequest = new VelocityVoltage(0.0).withSlot(0);
+  private VelocityTorqueCurrentFOC driveVelocityTorqueCurrentRequest = new VelocityTorqueCurrentFOC(0.0).withSlot(1);
+
+  /** Creates a new ModuleIOReal. */
+  public ModuleIOReal(int driveMotorId, int turnMotorId, boolean driveMotorReversed, boolean turnMotorReversed,
+    int absoluteEncoderId, double absoluteEncoderOffset) {
+      this.absoluteEncoderOffset = absoluteEncoderOffset;
+
+      absoluteEncoder = new CANcoder(absoluteEncoderId);
+
+      driveMotor = new PearadoxTalonFX(driveMotorId, NeutralModeValue.Brake, 45, driveMotorReversed,
+        new Slot0Configs()
+          .withKS(SwerveConstants.DRIVE_kS_VOLTS)
+          .withKV(SwerveConstants.DRIVE_kV_VOLTS)
+          .withKA(SwerveConstants.DRIVE_kA_VOLTS)
+          .withKP(SwerveConstants.DRIVE_kP_VOLTS),
+        new Slot1Configs()
+          .withKS(SwerveConstants.DRIVE_kS_AMPS)
+          .withKA(SwerveConstants.DRIVE_kA_AMPS)
+          .withKP(SwerveConstants.DRIVE_kP_AMPS));
+      //Steering runs closed loop on the SPARK MAX in radians, wrapping at +/-pi
+      turnMotor = new PearadoxSparkMax(turnMotorId, MotorType.kBrushless, IdleMode.kCoast, 25, turnMotorReversed,
+        SwerveConstants.KP_TURNING, 0, 0, SwerveConstants.TURN_MOTOR_PCONVERSION, SwerveConstants.TURN_MOTOR_VCONVERSION,
+        -Math.PI, Math.PI);
+      turnController = turnMotor.getClosedLoopController();
+
+      turnEncoder = turnMotor.getEncoder();
+
+      drivePosition = driveMotor.getPosition();
+      driveVelocity = driveMotor.getVelocity();
+      absoluteEncoderAngle = absoluteEncoder.getAbsolutePosition();
+      absoluteEncoderVelocity = absoluteEncoder.getVelocity();
+      driveCurrent = driveMotor.getStatorCurrent();
+      driveDutyCycle = driveMotor.getDutyCycle();
+
+      StatusSignalScheduler.getInstance().register("Module " + driveMotorId + " Odometry", Priority.CRITICAL,
+        OdometryThread.DISABLED_FREQUENCY, OdometryThread.FREQUENCY, OdometryThread.TELEOP_FREQUENCY,
+        drivePosition, driveVelocity, absoluteEncoderAngle, absoluteEncoderVelocity);
+      StatusSignalScheduler.getInstance().register("Module " + driveMotorId + " Telemetry", Priority.LOW,
+        10, 50, 50,
+        driveCurrent, driveDutyCycle);
+      driveMotor.optimizeBusUtilization();
+      absoluteEncoder.optimizeBusUtilization();
+
+      timestampQueue = OdometryThread.getInstance().makeTimestampQueue();
+      drivePositionQueue = OdometryThread.getInstance().registerSignal(drivePosition, driveVelocity);
+      turnPositionQueue = OdometryThread.getInstance().registerSignal(absoluteEncoderAngle, absoluteEncoderVelocity);
+  }
+
+  public static ModuleIOReal leftFront(){
+    return new ModuleIOReal(SwerveConstants.LEFT_FRONT_DRIVE_ID, SwerveConstants.LEFT_FRONT_TURN_ID, false, false,
+      SwerveConstants.LEFT_FRONT_CANCODER_ID, SwerveConstants.LEFT_FRONT_OFFSET);
+  }
+
+  public static ModuleIOReal rightFront(){
+    return new ModuleIOReal(SwerveConstants.RIGHT_FRONT_DRIVE_ID, SwerveConstants.RIGHT_FRONT_TURN_ID, false, false,
+      SwerveConstants.RIGHT_FRONT_CANCODER_ID, SwerveConstants.RIGHT_FRONT_OFFSET);
+  }
+
+  public static ModuleIOReal leftBack(){
+    return new ModuleIOReal(SwerveConstants.LEFT_BACK_DRIVE_ID, SwerveConstants.LEFT_BACK_TURN_ID, false, false,
+      SwerveConstants.LEFT_BACK_CANCODER_ID, SwerveConstants.LEFT_BACK_OFFSET);
+  }
+
+  public static ModuleIOReal rightBack(){
+    return new ModuleIOReal(SwerveConstants.RIGHT_BACK_DRIVE_ID, SwerveConstants.RIGHT_BACK_TURN_ID, false, false,
+      SwerveConstants.RIGHT_BACK_CANCODER_ID, SwerveConstants.RIGHT_BACK_OFFSET);
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    //Position and velocity are kept fresh by the odometry thread
+    inputs.driveConnected = BaseStatusSignal.isAllGood(drivePosition, driveVelocity);
+    inputs.drivePositionMeters = drivePosition.getValueAsDouble() * SwerveConstants.DRIVE_MOTOR_PCONVERSION;
+    inputs.driveVelocityMetersPerSec = driveVelocity.getValueAsDouble() * SwerveConstants.DRIVE_MOTOR_VCONVERSION;
+    BaseStatusSignal.refreshAll(driveCurrent, driveDutyCycle);
+    inputs.driveAppliedOutput = driveDutyCycle.getValueAsDouble();
+    inputs.driveCurrentAmps = driveCurrent.getValueAsDouble();
+
+    inputs.absoluteEncoderConnected = absoluteEncoderAngle.getStatus().isOK();
+    inputs.absoluteEncoderAngleRad = toAbsoluteAngle(absoluteEncoderAngle.getValueAsDouble());
+
+    inputs.turnPositionRad = turnEncoder.getPosition();
+    inputs.turnVelocityRadPerSec = turnEncoder.getVelocity();
+    inputs.turnAppliedOutput = turnMotor.getAppliedOutput();
+    inputs.turnCurrentAmps = turnMotor.getOutputCurrent();
+
+    //The queues are filled together under the odometry lock, which the caller holds, so they match in length
+    int sampleCount = timestampQueue.size();
+    inputs.odometryTimestamps = odometryTimestamps.next(sampleCount);
+    inputs.odometryDrivePositionsMeters = odometryDrivePositions.next(sampleCount);
+    inputs.odometryTurnPositionsRad = odometryTurnPositions.next(sampleCount);
+    for(int i = 0; i < sampleCount; i++){
+      inputs.odometryTimestamps[i] = timestampQueue.poll();
+      inputs.odometryDrivePositionsMeters[i] = drivePositionQueue.poll() * SwerveConstants.DRIVE_MOTOR_PCONVERSION;
+      inputs.odometryTurnPositionsRad[i] = toAbsoluteAngle(turnPositionQueue.poll());
+    }
+  }
+
+  private double toAbsoluteAngle(double rotations){
+    double angle = rotations;
+    angle -= absoluteEncoderOffset;
+    angle *= (2 * Math.PI);
+    return angle;
+  }
+
+  @Override
+  public void setDriveOpenLoop(double output) {
+    driveMotor.setControl(driveMotorRequest.withOutput(output));
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSec, double accelerationMetersPerSecSq, DriveControlMode mode) {
+    double velocity = velocityMetersPerSec / SwerveConstants.DRIVE_MOTOR_VCONVERSION;
+    double acceleration = accelerationMetersPerSecSq / SwerveConstants.DRIVE_MOTOR_VCONVERSION;
+    if(mode == DriveControlMode.VELOCITY_TORQUE_CURRENT){
+      driveMotor.setControl(driveVelocityTorqueCurrentRequest.withVelocity(velocity).withAcceleration(acceleration));
+    }
+    else{
+      driveMotor.setControl(driveVelocityVoltageRequest.withVelocity(velocity).withAcceleration(acceleration));
+    }
+  }
+
+  @Override
+  public void setTurnOpenLoop(double output) {
+    turnMotor.set(output);
+  }
+
+  @Override
+  public void setTurnPosition(double angleRad) {
+    turnController.setReference(angleRad, ControlType.kPosition);
+  }
+
+  @Override
+  public void setBrakeMode(boolean brake) {
+    if(brake){
+      driveMotor.setNeutralModeAsync(NeutralModeValue.Brake);
+      turnMotor.setIdleMode(IdleMode.kCoast);
+    }
+    else{
+      driveMotor.setNeutralModeAsync(NeutralModeValue.Coast);
+      turnMotor.setIdleMode(IdleMode.kCoast);
+    }
+  }
+
+  @Override
+  public void resetEncoders() {
+    driveMotor.setPosition(0);
+    turnEncoder.setPosition(toAbsoluteAngle(absoluteEncoderAngle.refresh().getValueAsDouble()));
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
+
+import org.ironmaple.simulation.SimulatedArena;
+import org.ironmaple.simulation.drivesims.SwerveModuleSimulation;
+import org.ironmaple.simulation.motorsims.SimulatedMotorController;
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.lib.util.AlternatingDoubleArray;
+import frc.robot.Constants.SwerveConstants;
+import frc.robot.Constants.SwerveConstants.DriveControlMode;
+
+/**
+ * A swerve module backed by a maple-sim {@link SwerveModuleSimulation}, which models the motors, wheel
+ * friction and the chassis' collisions with the field. The absolute encoder reads the true steer angle.
+ */
+public class ModuleIOSim implements ModuleIO {
+  private SwerveModuleSimulation moduleSimulation;
+  private SimulatedMotorController.GenericMotorController driveMotor;
+  private SimulatedMotorController.GenericMotorController turnMotor;
+
+  private double driveAppliedOutput = 0.0;
+  private double turnAppliedOutput = 0.0;
+  private double drivePositionOffsetRad = 0.0;
+
+  //Stands in for the SPARK MAX's on-controller position loop
+  private PIDController turnController = new PIDController(SwerveConstants.KP_TURNING, 0, 0);
+  private boolean turnClosedLoop = false;
+
+  //Stands in for the TalonFX's velocity loop. Torque current requests are run with the voltage gains
+  private boolean driveClosedLoop = false;
+  private double driveVelocitySetpoint = 0.0;
+  private double driveAccelerationSetpoint = 0.0;
+
+  private final AlternatingDoubleArray odometryTimestamps = new AlternatingDoubleArray();
+  private final AlternatingDoubleArray odometryDrivePositions = new AlternatingDoubleArray();
+  private final AlternatingDoubleArray odometryTurnPositions = new AlternatingDoubleArray();
+
+  /** Creates a new ModuleIOSim. */
+  public ModuleIOSim(SwerveModuleSimulation moduleSimulation) {
+    this.moduleSimulation = moduleSimulation;
+
+    driveMotor = moduleSimulation.useGenericMotorControllerForDrive().withCurrentLimit(Amps.of(45));
+    turnMotor = moduleSimulation.useGenericControllerForSteer().withCurrentLimit(Amps.of(25));
+
+    turnController.enableContinuousInput(-Math.PI, Math.PI);
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    if(turnClosedLoop){
+      turnAppliedOutput = MathUtil.clamp(
+        turnController.calculate(moduleSimulation.getSteerAbsoluteFacing().getRadians()), -1.0, 1.0);
+    }
+
+    double batteryVoltage = RobotController.getBatteryVoltage();
+    double wheelRadius = SwerveConstants.WHEEL_DIAMETER / 2;
+
+    if(driveClosedLoop){
+      double velocity = driveVelocitySetpoint / SwerveConstants.DRIVE_MOTOR_VCONVERSION;
+      double measuredVelocity = moduleSimulation.getDriveWheelFinalSpeed().in(RadiansPerSecond) * wheelRadius 
+        / SwerveConstants.DRIVE_MOTOR_VCONVERSION;
+      double volts = Math.signum(velocity) * SwerveConstants.DRIVE_kS_VOLTS
+        + velocity * SwerveConstants.DRIVE_kV_VOLTS
+        + driveAccelerationSetpoint / SwerveConstants.DRIVE_MOTOR_VCONVERSION * SwerveConstants.DRIVE_kA_VOLTS
+        + (velocity - measuredVelocity) * SwerveConstants.DRIVE_kP_VOLTS;
+      driveAppliedOutput = MathUtil.clamp(volts / batteryVoltage, -1.0, 1.0);
+    }
+    driveMotor.requestVoltage(Volts.of(driveAppliedOutput * batteryVoltage));
+    turnMotor.requestVoltage(Volts.of(turnAppliedOutput * batteryVoltage));
+
+    inputs.driveConnected = true;
+    inputs.drivePositionMeters = (moduleSimulation.getDriveWheelFinalPosition().in(Radians) - drivePositionOffsetRad) * wheelRadius;
+    inputs.driveVelocityMetersPerSec = moduleSimulation.getDriveWheelFinalSpeed().in(RadiansPerSecond) * wheelRadius;
+    inputs.driveAppliedOutput = driveAppliedOutput;
+    inputs.driveCurrentAmps = Math.abs(moduleSimulation.getDriveMotorStatorCurrent().in(Amps));
+
+    inputs.absoluteEncoderConnected = true;
+    inputs.absoluteEncoderAngleRad = moduleSimulation.getSteerAbsoluteFacing().getRadians();
+
+    inputs.turnPositionRad = inputs.absoluteEncoderAngleRad;
+    inputs.turnVelocityRadPerSec = moduleSimulation.getSteerAbsoluteEncoderSpeed().in(RadiansPerSecond);
+    inputs.turnAppliedOutput = turnAppliedOutput;
+    inputs.turnCurrentAmps = Math.abs(moduleSimulation.getSteerMotorStatorCurrent().in(Amps));
+
+    //One sample per physics sub-tick, like the odometry thread on the real robot
+    Angle[] drivePositions = moduleSimulation.getCachedDriveWheelFinalPositions();
+    Rotation2d[] turnPositions = moduleSimulation.getCachedSteerAbsolutePositions();
+    inputs.odometryTimestamps = odometryTimestamps.next(drivePositions.length);
+    fillSimulationOdometryTimestamps(inputs.odometryTimestamps);
+    inputs.odometryDrivePositionsMeters = odometryDrivePositions.next(drivePositions.length);
+    inputs.odometryTurnPositionsRad = odometryTurnPositions.next(drivePositions.length);
+    for(int i = 0; i < drivePositions.length; i++){
+      inputs.odometryDrivePositionsMeters[i] = (drivePositions[i].in(Radians) - drivePositionOffsetRad) * wheelRadius;
+      inputs.odometryTurnPositionsRad[i] = turnPositions[i].getRadians();
+    }
+  }
+
+  /**
+   * Fills in the timestamps of the physics sub-ticks run during the last robot loop, one per array
+   * element. They count back from the loop's simulated timestamp, not the wall clock, so they stay
+   * evenly spaced when the loop runs faster or slower than real time.
+   */
+  public static void fillSimulationOdometryTimestamps(double[] timestamps){
+    double dt = SimulatedArena.getSimulationDt().in(Seconds);
+    double start = Logger.getTimestamp() / 1e6 - timestamps.length * dt;
+    for(int i = 0; i < timestamps.length; i++){
+      timestamps[i] = start + (i + 1) * dt;
+    }
+  }
+
+  @Override
+  public void setDriveOpenLoop(double output) {
+    driveClosedLoop = false;
+    driveAppliedOutput = MathUtil.clamp(output, -1.0, 1.0);
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSec, double accelerationMetersPerSecSq, DriveControlMode mode) {
+    driveClosedLoop = true;
+    driveVelocitySetpoint = velocityMetersPerSec;
+    driveAccelerationSetpoint = accelerationMetersPerSecSq;
+  }
+
+  @Override
+  public void setTurnOpenLoop(double output) {
+    turnClosedLoop = false;
+    turnAppliedOutput = MathUtil.clamp(output, -1.0, 1.0);
+  }
+
+  @Override
+  public void setTurnPosition(double angleRad) {
+    turnClosedLoop = true;
+    turnController.setSetpoint(angleRad);
+  }
+
+  @Override
+  public void resetEncoders() {
+    drivePositionOffsetRad = moduleSimulation.getDriveWheelFinalPosition().in(Radians);
+  }
+}
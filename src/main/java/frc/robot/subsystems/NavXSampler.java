@@ -0,0 +1,99 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.studica.frc.AHRS;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Samples the NavX's yaw and yaw rate on a fixed-rate {@link Notifier} into a ring buffer of FPGA
+ * timestamped samples. A sample is only stored when the NavX has sent new data, so the buffer holds
+ * one entry per sensor update. Yaw is counterclockwise positive.
+ */
+public class NavXSampler {
+  public static final double FREQUENCY = 200.0; //The NavX's fastest update rate
+  private static final int BUFFER_SIZE = 64; //Over 300 ms at the full rate
+
+  private final AHRS gyro;
+  private final Notifier notifier;
+
+  private final double[] timestamps = new double[BUFFER_SIZE];
+  private final double[] yawDegrees = new double[BUFFER_SIZE];
+  private final double[] yawRatesDegPerSec = new double[BUFFER_SIZE];
+  private long writeCount = 0;
+  private long readCount = 0;
+  private long lastSensorTimestamp = -1;
+
+  /** Creates a new NavXSampler. */
+  public NavXSampler(AHRS gyro) {
+    this.gyro = gyro;
+    notifier = new Notifier(this::sample);
+    notifier.setName("NavXSampler");
+  }
+
+  public void start(){
+    notifier.startPeriodic(1.0 / FREQUENCY);
+  }
+
+  private void sample(){
+    long sensorTimestamp = gyro.getLastSensorTimestamp();
+    if(sensorTimestamp == lastSensorTimestamp){
+      return; //No new data since the last sample
+    }
+    lastSensorTimestamp = sensorTimestamp;
+
+    double timestamp = RobotController.getFPGATime() / 1e6;
+    double yaw = -gyro.getAngle();
+    double yawRate = -gyro.getRate();
+    synchronized(this){
+      int index = (int) (writeCount % BUFFER_SIZE);
+      timestamps[index] = timestamp;
+      yawDegrees[index] = yaw;
+      yawRatesDegPerSec[index] = yawRate;
+      writeCount++;
+    }
+  }
+
+  /** Returns how many samples were taken since the last {@link #drain}, up to the buffer size. */
+  public synchronized int available(){
+    return (int) Math.min(writeCount - readCount, BUFFER_SIZE);
+  }
+
+  /**
+   * Copies the samples taken since the last call, oldest first, and marks them read.
+   * @param timestampsOut Receives the FPGA timestamps, in seconds. Sized with {@link #available()}.
+   * @param yawDegreesOut Receives the yaws.
+   * @return The number of samples copied.
+   */
+  public synchronized int drain(double[] timestampsOut, double[] yawDegreesOut){
+    long start = Math.max(readCount, writeCount - BUFFER_SIZE); //Samples older than the buffer are lost
+    int count = (int) Math.min(writeCount - start, timestampsOut.length);
+    for(int i = 0; i < count; i++){
+      int index = (int) ((start + i) % BUFFER_SIZE);
+      timestampsOut[i] = timestamps[index];
+      yawDegreesOut[i] = yawDegrees[index];
+    }
+    readCount = start + count;
+    return count;
+  }
+
+  /** Returns the newest yaw in degrees, or the gyro's reading if nothing has been sampled yet. */
+  public synchronized double getLatestYawDegrees(){
+    return writeCount == 0 ? -gyro.getAngle() : yawDegrees[(int) ((writeCount - 1) % BUFFER_SIZE)];
+  }
+
+  /** Returns the newest yaw rate in degrees per second. */
+  public synchronized double getLatestYawRateDegPerSec(){
+    return writeCount == 0 ? -gyro.getRate() : yawRatesDegPerSec[(int) ((writeCount - 1) % BUFFER_SIZE)];
+  }
+
+  /** Drops every buffered sample, e.g. after the yaw is zeroed. */
+  public synchronized void clear(){
+    writeCount = 0;
+    readCount = 0;
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Samples the drivetrain's odometry signals on its own thread, as fast as they arrive. Each registered
+ * signal gets a queue that is filled in lockstep with the timestamp queue, so the main loop can drain
+ * every sample taken since the last loop while holding {@link #odometryLock}.
+ */
+public class OdometryThread extends Thread {
+  //Odometry signal rates per mode; auto gets the most since path following depends on it
+  public static final double FREQUENCY = 250.0;
+  public static final double TELEOP_FREQUENCY = 200.0;
+  public static final double DISABLED_FREQUENCY = 50.0;
+  public static final int QUEUE_SIZE = 20;
+
+  public static final Lock odometryLock = new ReentrantLock();
+
+  private final List<StatusSignal<Angle>> positionSignals = new ArrayList<>();
+  private final List<StatusSignal<AngularVelocity>> velocitySignals = new ArrayList<>();
+  private final List<Queue<Double>> phoenixQueues = new ArrayList<>();
+  private final List<Queue<Double>> timestampQueues = new ArrayList<>();
+
+  private BaseStatusSignal[] allSignals = new BaseStatusSignal[0];
+  private volatile long droppedSampleCount = 0;
+
+  private static final OdometryThread ODOMETRY_THREAD = new OdometryThread();
+
+  public static OdometryThread getInstance(){
+    return ODOMETRY_THREAD;
+  }
+
+  private OdometryThread() {
+    setName("OdometryThread");
+    setDaemon(true);
+  }
+
+  @Override
+  public void start() {
+    if(timestampQueues.size() > 0 && getState() == State.NEW){
+      super.start();
+    }
+  }
+
+  /**
+   * Registers a position signal along with the velocity used to latency compensate it.
+   * @param position The position signal, with its rate set through the StatusSignalScheduler.
+   * @param velocity The velocity signal, with its rate set through the StatusSignalScheduler.
+   * @return A queue of latency compensated positions, in rotations.
+   */
+  public Queue<Double> registerSignal(StatusSignal<Angle> position, StatusSignal<AngularVelocity> velocity){
+    Queue<Double> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    odometryLock.lock();
+    try{
+      positionSignals.add(position);
+      velocitySignals.add(velocity);
+      phoenixQueues.add(queue);
+
+      BaseStatusSignal[] newSignals = new BaseStatusSignal[allSignals.length + 2];
+      System.arraycopy(allSignals, 0, newSignals, 0, allSignals.length);
+      newSignals[allSignals.length] = position;
+      newSignals[allSignals.length + 1] = velocity;
+      allSignals = newSignals;
+    }
+    finally{
+      odometryLock.unlock();
+    }
+    return queue;
+  }
+
+  /** Returns a new queue of FPGA timestamps (seconds) for each sample. */
+  public Queue<Double> makeTimestampQueue(){
+    Queue<Double> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    odometryLock.lock();
+    try{
+      timestampQueues.add(queue);
+    }
+    finally{
+      odometryLock.unlock();
+    }
+    return queue;
+  }
+
+  /** Returns how many samples were dropped because a signal timed out or reported an error. */
+  public long getDroppedSampleCount(){
+    return droppedSampleCount;
+  }
+
+  @Override
+  public void run() {
+    while(true){
+      odometryLock.lock();
+      BaseStatusSignal[] signals = allSignals;
+      odometryLock.unlock();
+
+      try{
+        if(signals.length > 0){
+          StatusCode status = BaseStatusSignal.waitForAll(2.0 / DISABLED_FREQUENCY, signals); //Long enough for the slowest mode
+          if(!status.isOK()){
+            //The values are stale or invalid, and stamping them with a new time would corrupt odometry
+            droppedSampleCount++;
+            Thread.sleep((long) (1000.0 / FREQUENCY)); //Some errors return at once, so don't spin
+            continue;
+          }
+        }
+        else{
+          Thread.sleep((long) (1000.0 / FREQUENCY));
+        }
+      }
+      catch(InterruptedException e){
+        return;
+      }
+
+      double timestamp = RobotController.getFPGATime() / 1e6;
+
+      odometryLock.lock();
+      try{
+        for(int i = 0; i < positionSignals.size(); i++){
+          phoenixQueues.get(i).offer(
+            BaseStatusSignal.getLatencyCompensatedValueAsDouble(positionSignals.get(i), velocitySignals.get(i)));
+        }
+        for(int i = 0; i < timestampQueues.size(); i++){
+          timestampQueues.get(i).offer(timestamp);
+        }
+      }
+      finally{
+        odometryLock.unlock();
+      }
+    }
+  }
+}
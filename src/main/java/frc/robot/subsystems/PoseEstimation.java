@@ -0,0 +1,125 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.util.LoopProfiler;
+import frc.robot.Constants.AdvantageKitConstants;
+import frc.robot.Constants.SwerveConstants;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * Fuses the drivetrain's high rate odometry samples with Limelight MegaTag and PhotonVision poses.
+ * Vision frames are applied at their capture time; the estimator folds a late frame's correction into
+ * the present pose instead of replaying every odometry sample taken since.
+ */
+public class PoseEstimation extends SubsystemBase {
+  //How old a vision frame may be and still line up with the estimator's odometry buffer
+  private static final double MAX_VISION_DELAY_SECONDS = 1.5;
+
+  private SwerveDrivePoseEstimator poseEstimator;
+
+  private VisionIO limelightIO;
+  private final VisionIOInputsAutoLogged limelightInputs = new VisionIOInputsAutoLogged();
+
+  private final LoopProfiler.Section periodicTimer = LoopProfiler.getInstance().section("PoseEstimation.periodic");
+
+  private static final PoseEstimation POSE_ESTIMATION = create();
+
+  public static PoseEstimation getInstance(){
+    return POSE_ESTIMATION;
+  }
+
+  private static PoseEstimation create(){
+    switch(AdvantageKitConstants.CURRENT_MODE){
+      case REAL:
+        return new PoseEstimation(new VisionIOLimelight(VisionConstants.LL_NAME));
+
+      default: //Sim has no Limelight, replay reads its frames from the log
+        return new PoseEstimation(new VisionIO() {});
+    }
+  }
+
+  /** Creates a new PoseEstimation. */
+  public PoseEstimation(VisionIO limelightIO) {
+    this.limelightIO = limelightIO;
+
+    poseEstimator = new SwerveDrivePoseEstimator(
+      SwerveConstants.DRIVE_KINEMATICS,
+      new Rotation2d(),
+      new SwerveModulePosition[] {
+        new SwerveModulePosition(),
+        new SwerveModulePosition(),
+        new SwerveModulePosition(),
+        new SwerveModulePosition()
+      },
+      new Pose2d(),
+      SwerveConstants.ODOMETRY_STD_DEV,
+      VisionConstants.LIMELIGHT_STD_DEV);
+  }
+
+  @Override
+  public void periodic() {
+    periodicTimer.start();
+    limelightIO.updateInputs(limelightInputs);
+    Logger.processInputs("Limelight", limelightInputs);
+
+    for(int i = 0; i < limelightInputs.measurementTimestamps.length; i++){
+      addVisionMeasurement(
+        limelightInputs.measurementPoses[i],
+        limelightInputs.measurementTimestamps[i],
+        VecBuilder.fill(
+          limelightInputs.measurementXYStdDevs[i],
+          limelightInputs.measurementXYStdDevs[i],
+          limelightInputs.measurementThetaStdDevs[i]));
+    }
+
+    Logger.recordOutput("Odometry/Robot", getEstimatedPose());
+
+    periodicTimer.stop();
+  }
+
+  /**
+   * Adds an odometry sample taken at the given time.
+   * @param timestamp The FPGA timestamp of the sample, in seconds.
+   * @param heading The gyro heading at the sample.
+   * @param positions The module positions at the sample.
+   */
+  public void updateOdometry(double timestamp, Rotation2d heading, SwerveModulePosition[] positions){
+    poseEstimator.updateWithTime(timestamp, heading, positions);
+  }
+
+  /**
+   * Adds a vision pose captured at the given time.
+   * @param pose The measured robot pose.
+   * @param timestamp The FPGA timestamp of the capture, in seconds.
+   * @param stdDevs The x, y and heading standard deviations of the measurement.
+   */
+  public void addVisionMeasurement(Pose2d pose, double timestamp, Matrix<N3, N1> stdDevs){
+    if(timestamp < Timer.getFPGATimestamp() - MAX_VISION_DELAY_SECONDS){
+      return; //Too late to line up with odometry
+    }
+    poseEstimator.addVisionMeasurement(pose, timestamp, stdDevs);
+  }
+
+  public Pose2d getEstimatedPose(){
+    return poseEstimator.getEstimatedPosition();
+  }
+
+  public void resetPose(Rotation2d heading, SwerveModulePosition[] positions, Pose2d pose){
+    poseEstimator.resetPosition(heading, positions, pose);
+  }
+}
@@ -0,0 +1,163 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.filter.Debouncer.DebounceType;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.lib.util.AimingTable;
+import frc.lib.util.LoopProfiler;
+import frc.robot.Constants.AdvantageKitConstants;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.Constants.ShooterConstants;
+
+/**
+ * The shooter flywheels. Velocity is controlled on the motor controllers, which report velocity faster
+ * while the shooter has a target. {@link #atSpeed()} goes true once both wheels have held their
+ * target for a few loops, so feeding can start as soon as the shot is ready. While driving, the
+ * speaker shot comes from the precomputed {@link AimingTable}.
+ */
+public class Shooter extends SubsystemBase {
+  private ShooterIO io;
+  private final ShooterIOInputsAutoLogged inputs = new ShooterIOInputsAutoLogged();
+
+  private double leftTargetRPM = 0.0;
+  private double rightTargetRPM = 0.0;
+
+  //Only the rise is debounced, so a wheel dropping out of tolerance stops feeding right away
+  private final Trigger atSpeed = new Trigger(this::isWithinTolerance)
+    .debounce(ShooterConstants.AT_SPEED_DEBOUNCE, DebounceType.kRising);
+
+  private AimingTable aimingTable; //Null if the table was not generated
+
+  private final LoopProfiler.Section periodicTimer = LoopProfiler.getInstance().section("Shooter.periodic");
+
+  private static final Shooter SHOOTER = create();
+
+  public static Shooter getInstance(){
+    return SHOOTER;
+  }
+
+  private static Shooter create(){
+    switch(AdvantageKitConstants.CURRENT_MODE){
+      case REAL:
+        return new Shooter(new ShooterIOReal());
+
+      case SIM:
+        return new Shooter(new ShooterIOSim());
+
+      default: //Replay, inputs come from the log
+        return new Shooter(new ShooterIO() {});
+    }
+  }
+
+  /** Creates a new Shooter. */
+  public Shooter(ShooterIO io) {
+    this.io = io;
+
+    try{
+      aimingTable = AimingTable.load(new File(Filesystem.getDeployDirectory(), ShooterConstants.AIMING_TABLE_FILE));
+    }
+    catch(IOException e){
+      DriverStation.reportWarning("No aiming table, using fixed speaker shots: " + e.getMessage(), false);
+    }
+  }
+
+  @Override
+  public void periodic() {
+    periodicTimer.start();
+    io.updateInputs(inputs);
+    Logger.processInputs("Shooter", inputs);
+
+    Logger.recordOutput("Shooter/LeftTargetRPM", leftTargetRPM);
+    Logger.recordOutput("Shooter/RightTargetRPM", rightTargetRPM);
+    Logger.recordOutput("Shooter/AtSpeed", atSpeed.getAsBoolean());
+    periodicTimer.stop();
+  }
+
+  /**
+   * Spins the flywheels up to the given speeds and holds them there.
+   * @param leftRPM The left wheel's target.
+   * @param rightRPM The right wheel's target.
+   */
+  public void setVelocity(double leftRPM, double rightRPM){
+    if(leftTargetRPM == 0 && rightTargetRPM == 0){
+      io.setSignalPeriodMs(ShooterConstants.SPINNING_SIGNAL_PERIOD_MS);
+    }
+    leftTargetRPM = leftRPM;
+    rightTargetRPM = rightRPM;
+    io.setVelocity(leftRPM, rightRPM);
+  }
+
+  public void stop(){
+    leftTargetRPM = 0;
+    rightTargetRPM = 0;
+    io.stop();
+    io.setSignalPeriodMs(ShooterConstants.IDLE_SIGNAL_PERIOD_MS);
+  }
+
+  /** Returns a command that holds the flywheels at the given speeds, and stops them when it ends. */
+  public Command spinUp(double leftRPM, double rightRPM){
+    return startEnd(() -> setVelocity(leftRPM, rightRPM), this::stop).withName("SpinUp");
+  }
+
+  /**
+   * Returns a command that keeps the flywheels at the speed for a speaker shot from wherever the robot
+   * is, taking its motion toward or away from the speaker into account. Falls back to the fixed
+   * speaker speeds outside the table.
+   */
+  public Command aimAtSpeaker(){
+    return run(this::aimAtSpeakerPeriodic).finallyDo(this::stop).withName("AimAtSpeaker");
+  }
+
+  private void aimAtSpeakerPeriodic(){
+    Drivetrain drivetrain = Drivetrain.getInstance();
+    Pose2d pose = PoseEstimation.getInstance().getEstimatedPose();
+    ChassisSpeeds speeds = drivetrain.getFieldRelativeSpeeds();
+
+    double speakerX = drivetrain.isRedAlliance()
+      ? FieldConstants.FIELD_LENGTH - FieldConstants.BLUE_SPEAKER.getX()
+      : FieldConstants.BLUE_SPEAKER.getX();
+    double dx = pose.getX() - speakerX;
+    double dy = pose.getY() - FieldConstants.BLUE_SPEAKER.getY();
+    double distance = Math.hypot(dx, dy);
+    double radialVelocity = distance > 0 ? (speeds.vxMetersPerSecond * dx + speeds.vyMetersPerSecond * dy) / distance : 0;
+
+    boolean inTable = aimingTable != null && aimingTable.sample(distance, radialVelocity);
+    if(inTable){
+      double leftRPM = aimingTable.getFlywheelRPM();
+      setVelocity(leftRPM, leftRPM * ShooterConstants.SPEAKER_RIGHT_RPM / ShooterConstants.SPEAKER_LEFT_RPM);
+      Logger.recordOutput("Shooter/Aim/PivotAngleDeg", Math.toDegrees(aimingTable.getPivotAngleRad()));
+      Logger.recordOutput("Shooter/Aim/TimeOfFlight", aimingTable.getTimeOfFlight());
+    }
+    else{
+      setVelocity(ShooterConstants.SPEAKER_LEFT_RPM, ShooterConstants.SPEAKER_RIGHT_RPM);
+    }
+    Logger.recordOutput("Shooter/Aim/InTable", inTable);
+    Logger.recordOutput("Shooter/Aim/Distance", distance);
+    Logger.recordOutput("Shooter/Aim/RadialVelocity", radialVelocity);
+  }
+
+  /** Returns a trigger that is true once both wheels have been within tolerance of a target for a few loops. */
+  public Trigger atSpeed(){
+    return atSpeed;
+  }
+
+  private boolean isWithinTolerance(){
+    return (leftTargetRPM != 0 || rightTargetRPM != 0)
+      && Math.abs(inputs.leftVelocityRPM - leftTargetRPM) < ShooterConstants.SHOOTER_RPM_TOLERANCE
+      && Math.abs(inputs.rightVelocityRPM - rightTargetRPM) < ShooterConstants.SHOOTER_RPM_TOLERANCE;
+  }
+}
@@ -0,0 +1,33 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.AutoLog;
+
+/** Hardware abstraction for the two shooter flywheels. */
+public interface ShooterIO {
+  @AutoLog
+  public static class ShooterIOInputs {
+    public double leftVelocityRPM = 0.0;
+    public double leftAppliedVolts = 0.0;
+    public double leftCurrentAmps = 0.0;
+
+    public double rightVelocityRPM = 0.0;
+    public double rightAppliedVolts = 0.0;
+    public double rightCurrentAmps = 0.0;
+  }
+
+  /** Updates the set of loggable inputs. */
+  public default void updateInputs(ShooterIOInputs inputs) {}
+
+  /** Runs the flywheels' velocity loops on the motor controllers. */
+  public default void setVelocity(double leftRPM, double rightRPM) {}
+
+  /** Lets the flywheels coast. */
+  public default void stop() {}
+
+  /** Sets how often the controllers report velocity, in milliseconds. */
+  public default void setSignalPeriodMs(int periodMs) {}
+}
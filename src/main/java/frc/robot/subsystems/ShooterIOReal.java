@@ -0,0 +1,77 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.ClosedLoopSlot;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+
+import frc.lib.drivers.PearadoxSparkFlex;
+import frc.robot.Constants.ShooterConstants;
+
+/** The shooter's SPARK Flexes, each running its own velocity loop with a voltage feedforward. */
+public class ShooterIOReal implements ShooterIO {
+  private PearadoxSparkFlex leftMotor;
+  private PearadoxSparkFlex rightMotor;
+
+  private RelativeEncoder leftEncoder;
+  private RelativeEncoder rightEncoder;
+  private SparkClosedLoopController leftController;
+  private SparkClosedLoopController rightController;
+
+  /** Creates a new ShooterIOReal. */
+  public ShooterIOReal() {
+    leftMotor = new PearadoxSparkFlex(ShooterConstants.LEFT_SHOOTER_ID, MotorType.kBrushless, IdleMode.kCoast,
+      ShooterConstants.SHOOTER_CURRENT_LIMIT, false,
+      ShooterConstants.LEFT_SHOOTER_kP, ShooterConstants.LEFT_SHOOTER_kI, ShooterConstants.LEFT_SHOOTER_kD,
+      ShooterConstants.SHOOTER_MIN_OUTPUT, ShooterConstants.SHOOTER_MAX_OUTPUT);
+    rightMotor = new PearadoxSparkFlex(ShooterConstants.RIGHT_SHOOTER_ID, MotorType.kBrushless, IdleMode.kCoast,
+      ShooterConstants.SHOOTER_CURRENT_LIMIT, true,
+      ShooterConstants.RIGHT_SHOOTER_kP, ShooterConstants.RIGHT_SHOOTER_kI, ShooterConstants.RIGHT_SHOOTER_kD,
+      ShooterConstants.SHOOTER_MIN_OUTPUT, ShooterConstants.SHOOTER_MAX_OUTPUT);
+
+    leftEncoder = leftMotor.getEncoder();
+    rightEncoder = rightMotor.getEncoder();
+    leftController = leftMotor.getClosedLoopController();
+    rightController = rightMotor.getClosedLoopController();
+
+    setSignalPeriodMs(ShooterConstants.IDLE_SIGNAL_PERIOD_MS);
+  }
+
+  @Override
+  public void updateInputs(ShooterIOInputs inputs) {
+    inputs.leftVelocityRPM = leftEncoder.getVelocity();
+    inputs.leftAppliedVolts = leftMotor.getAppliedOutput() * leftMotor.getBusVoltage();
+    inputs.leftCurrentAmps = leftMotor.getOutputCurrent();
+
+    inputs.rightVelocityRPM = rightEncoder.getVelocity();
+    inputs.rightAppliedVolts = rightMotor.getAppliedOutput() * rightMotor.getBusVoltage();
+    inputs.rightCurrentAmps = rightMotor.getOutputCurrent();
+  }
+
+  @Override
+  public void setVelocity(double leftRPM, double rightRPM) {
+    leftController.setReference(leftRPM, ControlType.kVelocity, ClosedLoopSlot.kSlot0,
+      leftRPM * ShooterConstants.SHOOTER_kV_VOLTS_PER_RPM, ArbFFUnits.kVoltage);
+    rightController.setReference(rightRPM, ControlType.kVelocity, ClosedLoopSlot.kSlot0,
+      rightRPM * ShooterConstants.SHOOTER_kV_VOLTS_PER_RPM, ArbFFUnits.kVoltage);
+  }
+
+  @Override
+  public void stop() {
+    leftMotor.stopMotor();
+    rightMotor.stopMotor();
+  }
+
+  @Override
+  public void setSignalPeriodMs(int periodMs) {
+    leftMotor.setVelocitySignalPeriodMs(periodMs);
+    rightMotor.setVelocitySignalPeriodMs(periodMs);
+  }
+}
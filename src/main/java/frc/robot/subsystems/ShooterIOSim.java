@@ -0,0 +1,72 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.ShooterConstants;
+
+/** The shooter flywheels, simulated as two direct drive Vortex flywheels. */
+public class ShooterIOSim implements ShooterIO {
+  private FlywheelSim leftSim = createFlywheelSim();
+  private FlywheelSim rightSim = createFlywheelSim();
+
+  //Stands in for the SPARK Flexes' velocity loops
+  private boolean closedLoop = false;
+  private double leftSetpointRPM = 0.0;
+  private double rightSetpointRPM = 0.0;
+
+  private double leftAppliedVolts = 0.0;
+  private double rightAppliedVolts = 0.0;
+
+  private static FlywheelSim createFlywheelSim(){
+    DCMotor motor = DCMotor.getNeoVortex(1);
+    return new FlywheelSim(LinearSystemId.createFlywheelSystem(motor, ShooterConstants.SHOOTER_MOI, 1.0), motor);
+  }
+
+  @Override
+  public void updateInputs(ShooterIOInputs inputs) {
+    if(closedLoop){
+      leftAppliedVolts = calculateVolts(leftSetpointRPM, leftSim.getAngularVelocityRPM(), ShooterConstants.LEFT_SHOOTER_kP);
+      rightAppliedVolts = calculateVolts(rightSetpointRPM, rightSim.getAngularVelocityRPM(), ShooterConstants.RIGHT_SHOOTER_kP);
+    }
+    leftSim.setInputVoltage(leftAppliedVolts);
+    rightSim.setInputVoltage(rightAppliedVolts);
+    leftSim.update(TimedRobot.kDefaultPeriod);
+    rightSim.update(TimedRobot.kDefaultPeriod);
+
+    inputs.leftVelocityRPM = leftSim.getAngularVelocityRPM();
+    inputs.leftAppliedVolts = leftAppliedVolts;
+    inputs.leftCurrentAmps = Math.abs(leftSim.getCurrentDrawAmps());
+
+    inputs.rightVelocityRPM = rightSim.getAngularVelocityRPM();
+    inputs.rightAppliedVolts = rightAppliedVolts;
+    inputs.rightCurrentAmps = Math.abs(rightSim.getCurrentDrawAmps());
+  }
+
+  private static double calculateVolts(double setpointRPM, double measuredRPM, double kP){
+    double batteryVoltage = RobotController.getBatteryVoltage();
+    double output = kP * (setpointRPM - measuredRPM) + setpointRPM * ShooterConstants.SHOOTER_kV_VOLTS_PER_RPM / batteryVoltage;
+    return MathUtil.clamp(output, ShooterConstants.SHOOTER_MIN_OUTPUT, ShooterConstants.SHOOTER_MAX_OUTPUT) * batteryVoltage;
+  }
+
+  @Override
+  public void setVelocity(double leftRPM, double rightRPM) {
+    closedLoop = true;
+    leftSetpointRPM = leftRPM;
+    rightSetpointRPM = rightRPM;
+  }
+
+  @Override
+  public void stop() {
+    closedLoop = false;
+    leftAppliedVolts = 0.0;
+    rightAppliedVolts = 0.0;
+  }
+}
@@ -4,151 +4,171 @@
 
 package frc.robot.subsystems;
 
+import java.util.Arrays;
 
-import com.ctre.phoenix6.BaseStatusSignal;
-import com.ctre.phoenix6.StatusSignal;
-import com.ctre.phoenix6.controls.DutyCycleOut;
-import com.ctre.phoenix6.hardware.CANcoder;
-import com.ctre.phoenix6.signals.NeutralModeValue;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+import org.littletonrobotics.junction.Logger;
 
-import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.units.measure.Angle;
-import edu.wpi.first.units.measure.AngularVelocity;
-import edu.wpi.first.units.measure.Current;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.lib.drivers.PearadoxSparkMax;
-import frc.lib.drivers.PearadoxTalonFX;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
 import frc.robot.Constants.SwerveConstants;
+import frc.robot.Constants.SwerveConstants.DriveControlMode;
 
-public class SwerveModule extends SubsystemBase {
-  private PearadoxTalonFX driveMotor;
-  private PearadoxSparkMax turnMotor;
+public class SwerveModule {
+  private final ModuleIO io;
+  private final ModuleIOInputsAutoLogged inputs = new ModuleIOInputsAutoLogged();
+  private final String name;
+  private final String logKey;
 
-  private RelativeEncoder turnEncoder;
-
-  private PIDController turnPIDController;
-  private CANcoder absoluteEncoder;
-
-  private double absoluteEncoderOffset;
-
-  private StatusSignal<Angle> drivePosition;
-  private StatusSignal<AngularVelocity> driveVelocity;
-  private StatusSignal<Angle> absoluteEncoderAngle;
-  private StatusSignal<Current> driveCurrent;
+  //Grown to the most samples seen in a loop and reused, so steady state loops allocate no arrays
+  private SwerveModulePosition[] odometryPositions = new SwerveModulePosition[] {};
 
   private Rotation2d lastAngle;
-
-  private DutyCycleOut driveMotorRequest = new DutyCycleOut(0.0);
+  private double lastSpeed;
 
   /** Creates a new SwerveModule. */
-  public SwerveModule(int driveMotorId, int turnMotorId, boolean driveMotorReversed, boolean turnMotorReversed,
-    int absoluteEncoderId, double absoluteEncoderOffset) {
-      this.absoluteEncoderOffset = absoluteEncoderOffset;
-
-      absoluteEncoder = new CANcoder(absoluteEncoderId);
-
-      driveMotor = new PearadoxTalonFX(driveMotorId, NeutralModeValue.Coast, 45, driveMotorReversed);
-      turnMotor = new PearadoxSparkMax(turnMotorId, MotorType.kBrushless, IdleMode.kCoast, 25, turnMotorReversed);
-
-      turnEncoder = turnMotor.getEncoder();
-
-      turnPIDController = new PIDController(SwerveConstants.KP_TURNING, 0, 0);
-      turnPIDController.enableContinuousInput(-Math.PI, Math.PI);
-
-      drivePosition = driveMotor.getPosition();
-      driveVelocity = driveMotor.getVelocity();
-      absoluteEncoderAngle = absoluteEncoder.getAbsolutePosition();
-      driveCurrent = driveMotor.getStatorCurrent();
-
-      BaseStatusSignal.setUpdateFrequencyForAll(50, drivePosition, driveVelocity, absoluteEncoderAngle, driveCurrent);
-      driveMotor.optimizeBusUtilization();
+  public SwerveModule(ModuleIO io, String name) {
+      this.io = io;
+      this.name = name;
+      logKey = name == null ? null : "Drive/" + name;
 
       resetEncoders();
+      updateInputs();
       lastAngle = getState().angle;
   }
 
-  @Override
-  public void periodic() {
-    // This method will be called once per scheduler run
+  /** Creates a new SwerveModule whose inputs are never logged, for exercising the control path. */
+  public SwerveModule(ModuleIO io) {
+      this(io, null);
   }
 
-  public void setBrake(boolean brake){
-    if(brake){
-      driveMotor.setNeutralMode(NeutralModeValue.Brake);
-      turnMotor.setIdleMode(IdleMode.kCoast);
+  /**
+   * Reads and logs this module's inputs. Called by the {@link Drivetrain} while it holds the
+   * {@link OdometryThread#odometryLock}, so every module sees the same odometry samples.
+   */
+  public void updateInputs(){
+    io.updateInputs(inputs);
+    if(logKey != null){
+      Logger.processInputs(logKey, inputs);
     }
-    else{
-      driveMotor.setNeutralMode(NeutralModeValue.Coast);
-      turnMotor.setIdleMode(IdleMode.kCoast);
+
+    int sampleCount = inputs.odometryTimestamps.length;
+    if(odometryPositions.length < sampleCount){
+      int oldLength = odometryPositions.length;
+      odometryPositions = Arrays.copyOf(odometryPositions, sampleCount);
+      for(int i = oldLength; i < sampleCount; i++){
+        odometryPositions[i] = new SwerveModulePosition();
+      }
     }
+    for(int i = 0; i < sampleCount; i++){
+      odometryPositions[i].distanceMeters = inputs.odometryDrivePositionsMeters[i];
+      odometryPositions[i].angle = new Rotation2d(inputs.odometryTurnPositionsRad[i]);
+    }
+  }
+
+  public void setBrake(boolean brake){
+    io.setBrakeMode(brake);
   }
-  
+
   public double getDriveMotorPosition(){
-    return driveMotor.getPosition().getValueAsDouble() * SwerveConstants.DRIVE_MOTOR_PCONVERSION;
+    return inputs.drivePositionMeters;
   }
 
   public double getDriveMotorVelocity(){
-    return driveMotor.getVelocity().getValueAsDouble() * SwerveConstants.DRIVE_MOTOR_VCONVERSION;
+    return inputs.driveVelocityMetersPerSec;
   }
 
   public double getTurnMotorPosition(){
-    return turnEncoder.getPosition() * SwerveConstants.TURN_MOTOR_PCONVERSION;
+    return inputs.turnPositionRad;
   }
 
   public double getTurnMotorVelocity(){
-    return turnEncoder.getVelocity() * SwerveConstants.TURN_MOTOR_VCONVERSION;
+    return inputs.turnVelocityRadPerSec;
   }
 
   public double getAbsoluteEncoderAngle(){
-    double angle = absoluteEncoder.getAbsolutePosition().getValueAsDouble();
-    angle -= absoluteEncoderOffset;
-    angle *= (2 * Math.PI);
-    return angle;
+    return inputs.absoluteEncoderAngleRad;
+  }
+
+  /**
+   * Returns the module positions sampled by the odometry thread during the last loop. Only the first
+   * {@link #getOdometryTimestamps()}.length entries are current, and they are overwritten next loop.
+   */
+  public SwerveModulePosition[] getOdometryPositions(){
+    return odometryPositions;
+  }
+
+  /** Returns the timestamps of the odometry samples taken during the last loop. */
+  public double[] getOdometryTimestamps(){
+    return inputs.odometryTimestamps;
   }
 
   public void resetEncoders(){
-    driveMotor.setPosition(0);
-    turnEncoder.setPosition(getAbsoluteEncoderAngle() / SwerveConstants.TURN_MOTOR_PCONVERSION);
+    io.resetEncoders();
   }
 
   public SwerveModuleState getState(){
     return new SwerveModuleState(getDriveMotorVelocity(), new Rotation2d(getTurnMotorPosition()));
   }
 
+  /**
+   * Writes the measured state into a telemetry buffer without allocating.
+   * @param buffer The buffer to fill.
+   * @param offset The index of this module's angle (radians); speed (m/s) follows it.
+   */
+  public void fillState(double[] buffer, int offset){
+    buffer[offset] = getTurnMotorPosition();
+    buffer[offset + 1] = getDriveMotorVelocity();
+  }
+
+  /**
+   * Writes the last commanded state into a telemetry buffer without allocating.
+   * @param buffer The buffer to fill.
+   * @param offset The index of this module's angle (radians); speed (m/s) follows it.
+   */
+  public void fillSetpoint(double[] buffer, int offset){
+    buffer[offset] = lastAngle.getRadians();
+    buffer[offset + 1] = lastSpeed;
+  }
+
   public SwerveModulePosition getPosition(){
     return new SwerveModulePosition(getDriveMotorPosition(), new Rotation2d(getTurnMotorPosition()));
   }
 
   public void setDesiredState(SwerveModuleState desiredState){
-    desiredState = SwerveModuleState.optimize(desiredState, getState().angle); 
-    
+    desiredState = SwerveModuleState.optimize(desiredState, getState().angle);
+
+    setSpeed(desiredState); //Before setAngle, which moves lastAngle to the new setpoint
     setAngle(desiredState);
-    setSpeed(desiredState);
   }
 
   public void setSpeed(SwerveModuleState desiredState){
-    driveMotor.setControl(driveMotorRequest.withOutput(desiredState.speedMetersPerSecond / SwerveConstants.DRIVETRAIN_MAX_SPEED));
+    DriveControlMode mode = DriverStation.isAutonomous() 
+      ? SwerveConstants.AUTO_DRIVE_CONTROL_MODE : SwerveConstants.TELEOP_DRIVE_CONTROL_MODE;
+
+    if(mode == DriveControlMode.OPEN_LOOP){
+      io.setDriveOpenLoop(desiredState.speedMetersPerSecond / SwerveConstants.DRIVETRAIN_MAX_SPEED);
+    }
+    else{
+      //Project the last setpoint onto the new heading so optimize() flipping the wheel is not seen as acceleration
+      double lastSpeedAlongAngle = lastSpeed * lastAngle.minus(desiredState.angle).getCos();
+      double acceleration = (desiredState.speedMetersPerSecond - lastSpeedAlongAngle) / TimedRobot.kDefaultPeriod;
+      io.setDriveVelocity(desiredState.speedMetersPerSecond, acceleration, mode);
+    }
+    lastSpeed = desiredState.speedMetersPerSecond;
   }
 
   public void setAngle(SwerveModuleState desiredState){
     Rotation2d angle = (Math.abs(desiredState.speedMetersPerSecond) <= (SwerveConstants.DRIVETRAIN_MAX_SPEED * 0.01)) ? lastAngle : desiredState.angle; //Prevent rotating module if speed is less then 1%. Prevents Jittering.
-    
-    turnMotor.set(turnPIDController.calculate(getTurnMotorPosition(), desiredState.angle.getRadians()));
+
+    io.setTurnPosition(angle.getRadians());
     lastAngle = angle;
   }
 
   public void stop(){
-    driveMotor.setControl(driveMotorRequest.withOutput(0));
-    turnMotor.set(0);
-  }
-
-  public int getDeviceID(){
-    return driveMotor.getDeviceID();
+    io.setDriveOpenLoop(0);
+    io.setTurnOpenLoop(0);
   }
 }
@@ -0,0 +1,80 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.lib.util.LoopProfiler;
+import frc.robot.Constants.AdvantageKitConstants;
+import frc.robot.Constants.TransportConstants;
+
+/**
+ * The transport rollers, which carry a note from the intake to the shooter. While intaking, the IR
+ * sensor's interrupt stops the rollers the moment a note breaks the beam; the time of that edge is
+ * available through {@link #getLastNoteTimestamp()}.
+ */
+public class Transport extends SubsystemBase {
+  private TransportIO io;
+  private final TransportIOInputsAutoLogged inputs = new TransportIOInputsAutoLogged();
+
+  private final Trigger hasNote = new Trigger(() -> inputs.noteDetected);
+
+  private final LoopProfiler.Section periodicTimer = LoopProfiler.getInstance().section("Transport.periodic");
+
+  private static final Transport TRANSPORT = create();
+
+  public static Transport getInstance(){
+    return TRANSPORT;
+  }
+
+  private static Transport create(){
+    switch(AdvantageKitConstants.CURRENT_MODE){
+      case REAL:
+        return new Transport(new TransportIOReal());
+
+      default: //No note physics in sim; in replay inputs come from the log
+        return new Transport(new TransportIO() {});
+    }
+  }
+
+  /** Creates a new Transport. */
+  public Transport(TransportIO io) {
+    this.io = io;
+  }
+
+  @Override
+  public void periodic() {
+    periodicTimer.start();
+    io.updateInputs(inputs);
+    Logger.processInputs("Transport", inputs);
+    periodicTimer.stop();
+  }
+
+  /** Returns a command that runs the rollers until a note breaks the beam, stopping them on the edge. */
+  public Command intake(){
+    return startEnd(() -> io.setOutput(TransportConstants.INTAKE_SPEED, true), () -> io.setOutput(0, false))
+      .until(hasNote)
+      .withName("Intake");
+  }
+
+  /** Returns a command that runs the held note into the shooter. */
+  public Command feed(){
+    return startEnd(() -> io.setOutput(TransportConstants.FEED_SPEED, false), () -> io.setOutput(0, false))
+      .withName("Feed");
+  }
+
+  /** Returns a trigger that is true while a note is breaking the beam. */
+  public Trigger hasNote(){
+    return hasNote;
+  }
+
+  /** Returns the FPGA timestamp, in seconds, of the last time a note broke the beam. */
+  public double getLastNoteTimestamp(){
+    return inputs.lastNoteTimestamp;
+  }
+}
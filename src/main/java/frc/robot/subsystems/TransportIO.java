@@ -0,0 +1,32 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.AutoLog;
+
+/** Hardware abstraction for the transport rollers and the IR note sensor. */
+public interface TransportIO {
+  @AutoLog
+  public static class TransportIOInputs {
+    public boolean noteDetected = false;
+    public double lastNoteTimestamp = 0.0; //FPGA seconds of the last beam break edge
+    public long noteEdgeCount = 0;
+
+    public double topAppliedOutput = 0.0;
+    public double topCurrentAmps = 0.0;
+    public double botAppliedOutput = 0.0;
+    public double botCurrentAmps = 0.0;
+  }
+
+  /** Updates the set of loggable inputs. */
+  public default void updateInputs(TransportIOInputs inputs) {}
+
+  /**
+   * Runs the rollers at the specified duty cycle.
+   * @param output The duty cycle, positive toward the shooter.
+   * @param stopOnNote Whether to stop the rollers the moment the IR beam breaks.
+   */
+  public default void setOutput(double output, boolean stopOnNote) {}
+}
@@ -0,0 +1,82 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.DigitalInput;
+import frc.lib.drivers.PearadoxSparkMax;
+import frc.robot.Constants.TransportConstants;
+
+/**
+ * The transport's SPARK MAXes and IR beam break. The beam's edges are caught by an
+ * {@link AsynchronousInterrupt}, which stops the rollers from the interrupt thread when asked to, so a
+ * note is held where it broke the beam instead of wherever it is when the next loop runs.
+ */
+public class TransportIOReal implements TransportIO {
+  private PearadoxSparkMax topMotor;
+  private PearadoxSparkMax botMotor;
+
+  private DigitalInput irSensor; //Low while the beam is broken
+  private AsynchronousInterrupt irInterrupt;
+
+  //Guarded by this, shared with the interrupt thread
+  private boolean stopOnNote = false;
+  private double lastNoteTimestamp = 0.0;
+  private long noteEdgeCount = 0;
+
+  /** Creates a new TransportIOReal. */
+  public TransportIOReal() {
+    topMotor = new PearadoxSparkMax(TransportConstants.TOP_TRANSPORT_ID, MotorType.kBrushless, IdleMode.kBrake,
+      TransportConstants.TRANSPORT_CURRENT_LIMIT, false);
+    botMotor = new PearadoxSparkMax(TransportConstants.BOT_TRANSPORT_ID, MotorType.kBrushless, IdleMode.kBrake,
+      TransportConstants.TRANSPORT_CURRENT_LIMIT, true);
+
+    irSensor = new DigitalInput(TransportConstants.IR_SENSOR_CHANNEL);
+    irInterrupt = new AsynchronousInterrupt(irSensor, (rising, falling) -> {
+      if(falling){
+        onBeamBroken();
+      }
+    });
+    irInterrupt.setInterruptEdges(false, true);
+    irInterrupt.enable();
+  }
+
+  private synchronized void onBeamBroken(){
+    if(stopOnNote){
+      topMotor.stopMotor();
+      botMotor.stopMotor();
+      stopOnNote = false;
+    }
+    lastNoteTimestamp = irInterrupt.getFallingTimestamp();
+    noteEdgeCount++;
+  }
+
+  @Override
+  public synchronized void updateInputs(TransportIOInputs inputs) {
+    inputs.noteDetected = !irSensor.get();
+    inputs.lastNoteTimestamp = lastNoteTimestamp;
+    inputs.noteEdgeCount = noteEdgeCount;
+
+    inputs.topAppliedOutput = topMotor.getAppliedOutput();
+    inputs.topCurrentAmps = topMotor.getOutputCurrent();
+    inputs.botAppliedOutput = botMotor.getAppliedOutput();
+    inputs.botCurrentAmps = botMotor.getOutputCurrent();
+  }
+
+  @Override
+  public synchronized void setOutput(double output, boolean stopOnNote) {
+    //Don't restart the rollers on a note the interrupt has already stopped
+    if(stopOnNote && !irSensor.get()){
+      output = 0;
+      stopOnNote = false;
+    }
+    this.stopOnNote = stopOnNote;
+    topMotor.set(output);
+    botMotor.set(output);
+  }
+}
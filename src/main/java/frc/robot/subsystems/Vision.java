@@ -0,0 +1,65 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.util.LoopProfiler;
+import frc.robot.Constants.AdvantageKitConstants;
+import frc.robot.Constants.VisionConstants;
+
+/** Passes the PhotonVision measurements gathered since the last loop to {@link PoseEstimation}. */
+public class Vision extends SubsystemBase {
+  private VisionIO io;
+  private final VisionIOInputsAutoLogged inputs = new VisionIOInputsAutoLogged();
+
+  private PoseEstimation poseEstimation = PoseEstimation.getInstance();
+
+  private final LoopProfiler.Section periodicTimer = LoopProfiler.getInstance().section("Vision.periodic");
+
+  private static final Vision VISION = create();
+
+  public static Vision getInstance(){
+    return VISION;
+  }
+
+  private static Vision create(){
+    switch(AdvantageKitConstants.CURRENT_MODE){
+      case REAL:
+        return new Vision(new VisionIOPhoton(VisionConstants.PHOTON_CAMERA_NAMES, VisionConstants.ROBOT_TO_PHOTON_CAMERAS));
+
+      case SIM:
+        return new Vision(new VisionIOPhotonSim(
+          VisionConstants.PHOTON_CAMERA_NAMES,
+          VisionConstants.ROBOT_TO_PHOTON_CAMERAS,
+          () -> Drivetrain.getInstance().getDriveSimulation().getSimulatedDriveTrainPose()));
+
+      default: //Replay, measurements come from the log
+        return new Vision(new VisionIO() {});
+    }
+  }
+
+  /** Creates a new Vision. */
+  public Vision(VisionIO io) {
+    this.io = io;
+  }
+
+  @Override
+  public void periodic() {
+    periodicTimer.start();
+    io.updateInputs(inputs);
+    Logger.processInputs("Vision", inputs);
+
+    for(int i = 0; i < inputs.measurementTimestamps.length; i++){
+      poseEstimation.addVisionMeasurement(
+        inputs.measurementPoses[i],
+        inputs.measurementTimestamps[i],
+        VecBuilder.fill(inputs.measurementXYStdDevs[i], inputs.measurementXYStdDevs[i], inputs.measurementThetaStdDevs[i]));
+    }
+    periodicTimer.stop();
+  }
+}
@@ -0,0 +1,28 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.AutoLog;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/** Hardware abstraction for the vision cameras. Measurements have already passed rejection. */
+public interface VisionIO {
+  @AutoLog
+  public static class VisionIOInputs {
+    public boolean[] camerasConnected = new boolean[] {};
+
+    public double[] measurementTimestamps = new double[] {};
+    public Pose2d[] measurementPoses = new Pose2d[] {};
+    public double[] measurementXYStdDevs = new double[] {};
+    public double[] measurementThetaStdDevs = new double[] {};
+    public int[] measurementTagCounts = new int[] {};
+
+    public long rejectedFrames = 0;
+  }
+
+  /** Updates the set of loggable inputs. */
+  public default void updateInputs(VisionIOInputs inputs) {}
+}
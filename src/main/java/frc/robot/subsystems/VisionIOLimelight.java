@@ -0,0 +1,93 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import frc.robot.Constants.VisionConstants;
+
+/** Reads every Limelight MegaTag frame published since the last loop and rejects the unreliable ones. */
+public class VisionIOLimelight implements VisionIO {
+  //Indices into the Limelight botpose array
+  private static final int LATENCY_INDEX = 6;
+  private static final int TAG_COUNT_INDEX = 7;
+  private static final int AVG_TAG_DIST_INDEX = 9;
+  private static final int FIRST_TAG_INDEX = 11;
+  private static final int VALUES_PER_TAG = 7;
+  private static final int TAG_AMBIGUITY_OFFSET = 6;
+
+  private final DoubleArraySubscriber botPoseSubscriber;
+
+  private long rejectedFrames = 0;
+
+  /** Creates a new VisionIOLimelight. */
+  public VisionIOLimelight(String name) {
+    botPoseSubscriber = NetworkTableInstance.getDefault()
+      .getTable(name)
+      .getDoubleArrayTopic("botpose_wpiblue")
+      .subscribe(new double[0]);
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    if(inputs.camerasConnected.length != 1){
+      inputs.camerasConnected = new boolean[1];
+    }
+    inputs.camerasConnected[0] = botPoseSubscriber.exists();
+
+    TimestampedDoubleArray[] frames = botPoseSubscriber.readQueue();
+    int count = 0;
+    for(TimestampedDoubleArray frame : frames){
+      if(isValid(frame.value)){
+        count++;
+      }
+      else{
+        rejectedFrames++;
+      }
+    }
+
+    inputs.measurementTimestamps = new double[count];
+    inputs.measurementPoses = new Pose2d[count];
+    inputs.measurementXYStdDevs = new double[count];
+    inputs.measurementThetaStdDevs = new double[count];
+    inputs.measurementTagCounts = new int[count];
+    int i = 0;
+    for(TimestampedDoubleArray frame : frames){
+      double[] botPose = frame.value;
+      if(!isValid(botPose)){
+        continue;
+      }
+      //NT timestamps share the FPGA time base on the robot
+      inputs.measurementTimestamps[i] = frame.timestamp / 1e6 - botPose[LATENCY_INDEX] / 1e3;
+      inputs.measurementPoses[i] = new Pose2d(botPose[0], botPose[1], Rotation2d.fromDegrees(botPose[5]));
+      inputs.measurementXYStdDevs[i] = VisionConstants.LIMELIGHT_STD_DEV.get(0, 0);
+      inputs.measurementThetaStdDevs[i] = VisionConstants.LIMELIGHT_STD_DEV.get(2, 0);
+      inputs.measurementTagCounts[i] = (int) botPose[TAG_COUNT_INDEX];
+      i++;
+    }
+
+    inputs.rejectedFrames = rejectedFrames;
+  }
+
+  private static boolean isValid(double[] botPose){
+    if(botPose.length < FIRST_TAG_INDEX || botPose[TAG_COUNT_INDEX] < 1){
+      return false;
+    }
+
+    if(botPose[AVG_TAG_DIST_INDEX] > VisionConstants.DISTANCE_FILTER){
+      return false;
+    }
+
+    for(int i = FIRST_TAG_INDEX + TAG_AMBIGUITY_OFFSET; i < botPose.length; i += VALUES_PER_TAG){
+      if(botPose[i] > VisionConstants.AMBIGUITY_FILTER){
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,149 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonCamera;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * Reads every unread PhotonVision result from each camera on its own thread. Each frame is solved
+ * into a robot pose (multi-tag on the coprocessor, falling back to the least ambiguous tag), checked
+ * for ambiguity, tag distance and field bounds, and passed to the main loop through a lock-free queue.
+ */
+public class VisionIOPhoton implements VisionIO {
+  /** A robot pose that passed rejection. */
+  private record Measurement(double timestamp, Pose2d pose, double xyStdDev, double thetaStdDev, int tagCount) {}
+
+  protected final PhotonCamera[] cameras;
+  private final PhotonPoseEstimator[] poseEstimators;
+
+  private final ConcurrentLinkedQueue<Measurement> measurements = new ConcurrentLinkedQueue<>();
+  private final List<Measurement> drained = new ArrayList<>();
+  private volatile long rejectedFrames = 0; //Only written by the vision thread
+
+  /** Creates a new VisionIOPhoton. */
+  public VisionIOPhoton(String[] cameraNames, Transform3d[] robotToCameras) {
+    cameras = new PhotonCamera[cameraNames.length];
+    poseEstimators = new PhotonPoseEstimator[cameraNames.length];
+    for(int i = 0; i < cameraNames.length; i++){
+      cameras[i] = new PhotonCamera(cameraNames[i]);
+      poseEstimators[i] = new PhotonPoseEstimator(
+        FieldConstants.APRILTAG_LAYOUT, PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, robotToCameras[i]);
+      poseEstimators[i].setMultiTagFallbackStrategy(PoseStrategy.LOWEST_AMBIGUITY);
+    }
+
+    Thread thread = new Thread(this::run, "VisionThread");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run(){
+    while(true){
+      for(int i = 0; i < cameras.length; i++){
+        for(PhotonPipelineResult result : cameras[i].getAllUnreadResults()){
+          processResult(poseEstimators[i], result);
+        }
+      }
+
+      try{
+        Thread.sleep((long) (1000.0 / VisionConstants.PHOTON_FREQUENCY));
+      }
+      catch(InterruptedException e){
+        return;
+      }
+    }
+  }
+
+  private void processResult(PhotonPoseEstimator poseEstimator, PhotonPipelineResult result){
+    if(!result.hasTargets()){
+      return;
+    }
+
+    Optional<EstimatedRobotPose> estimate = poseEstimator.update(result);
+    if(estimate.isEmpty()){
+      rejectedFrames++;
+      return;
+    }
+
+    List<PhotonTrackedTarget> targets = estimate.get().targetsUsed;
+    double totalDistance = 0;
+    for(PhotonTrackedTarget target : targets){
+      totalDistance += target.getBestCameraToTarget().getTranslation().getNorm();
+    }
+    double averageDistance = totalDistance / targets.size();
+
+    //Ambiguity only means something for a single tag solve
+    boolean ambiguous = targets.size() == 1 && targets.get(0).getPoseAmbiguity() > VisionConstants.AMBIGUITY_FILTER;
+    Pose3d pose = estimate.get().estimatedPose;
+    if(ambiguous || averageDistance > VisionConstants.DISTANCE_FILTER || !isOnField(pose)){
+      rejectedFrames++;
+      return;
+    }
+
+    double stdDevFactor = averageDistance * averageDistance / targets.size();
+    measurements.offer(new Measurement(
+      estimate.get().timestampSeconds,
+      pose.toPose2d(),
+      VisionConstants.PHOTON_XY_STD_DEV * stdDevFactor,
+      VisionConstants.PHOTON_THETA_STD_DEV * stdDevFactor,
+      targets.size()));
+  }
+
+  private static boolean isOnField(Pose3d pose){
+    return pose.getX() > -FieldConstants.FIELD_BORDER_MARGIN
+      && pose.getX() < FieldConstants.FIELD_LENGTH + FieldConstants.FIELD_BORDER_MARGIN
+      && pose.getY() > -FieldConstants.FIELD_BORDER_MARGIN
+      && pose.getY() < FieldConstants.FIELD_WIDTH + FieldConstants.FIELD_BORDER_MARGIN
+      && Math.abs(pose.getZ()) < FieldConstants.FIELD_Z_MARGIN;
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    if(inputs.camerasConnected.length != cameras.length){
+      inputs.camerasConnected = new boolean[cameras.length];
+    }
+    for(int i = 0; i < cameras.length; i++){
+      inputs.camerasConnected[i] = cameras[i].isConnected();
+    }
+
+    drained.clear();
+    Measurement measurement;
+    while((measurement = measurements.poll()) != null){
+      drained.add(measurement);
+    }
+
+    int count = drained.size();
+    inputs.measurementTimestamps = new double[count];
+    inputs.measurementPoses = new Pose2d[count];
+    inputs.measurementXYStdDevs = new double[count];
+    inputs.measurementThetaStdDevs = new double[count];
+    inputs.measurementTagCounts = new int[count];
+    for(int i = 0; i < count; i++){
+      measurement = drained.get(i);
+      inputs.measurementTimestamps[i] = measurement.timestamp();
+      inputs.measurementPoses[i] = measurement.pose();
+      inputs.measurementXYStdDevs[i] = measurement.xyStdDev();
+      inputs.measurementThetaStdDevs[i] = measurement.thetaStdDev();
+      inputs.measurementTagCounts[i] = measurement.tagCount();
+    }
+
+    inputs.rejectedFrames = rejectedFrames;
+  }
+}
@@ -0,0 +1,49 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import java.util.function.Supplier;
+
+import org.photonvision.simulation.PhotonCameraSim;
+import org.photonvision.simulation.SimCameraProperties;
+import org.photonvision.simulation.VisionSystemSim;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import frc.robot.Constants.FieldConstants;
+
+/**
+ * The PhotonVision cameras, simulated by PhotonLib's {@link VisionSystemSim} from the simulated
+ * robot pose. Frames go through the same vision thread and rejection as on the robot.
+ */
+public class VisionIOPhotonSim extends VisionIOPhoton {
+  private final VisionSystemSim visionSim = new VisionSystemSim("main");
+  private final Supplier<Pose2d> robotPoseSupplier;
+
+  /** Creates a new VisionIOPhotonSim. */
+  public VisionIOPhotonSim(String[] cameraNames, Transform3d[] robotToCameras, Supplier<Pose2d> robotPoseSupplier) {
+    super(cameraNames, robotToCameras);
+    this.robotPoseSupplier = robotPoseSupplier;
+
+    visionSim.addAprilTags(FieldConstants.APRILTAG_LAYOUT);
+
+    SimCameraProperties properties = new SimCameraProperties();
+    properties.setCalibration(1280, 800, Rotation2d.fromDegrees(70));
+    properties.setCalibError(0.25, 0.08);
+    properties.setFPS(30);
+    properties.setAvgLatencyMs(25);
+    properties.setLatencyStdDevMs(5);
+    for(int i = 0; i < cameras.length; i++){
+      visionSim.addCamera(new PhotonCameraSim(cameras[i], properties, FieldConstants.APRILTAG_LAYOUT), robotToCameras[i]);
+    }
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    visionSim.update(robotPoseSupplier.get());
+    super.updateInputs(inputs);
+  }
+}
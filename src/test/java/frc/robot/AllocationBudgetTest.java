@@ -0,0 +1,111 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.lib.util.LoopProfiler;
+
+/**
+ * Runs robotPeriodic() in teleop with the SwerveDrive default command against the maple-sim drivetrain,
+ * and fails when a {@link LoopProfiler} section allocates more bytes per loop than its budget. Tagged so
+ * it stays out of ./gradlew test; run it with ./gradlew allocationBudget.
+ */
+@Tag("allocation")
+class AllocationBudgetTest {
+  private static final int WARMUP_CYCLES = 1000; //Steady state only; the first loops load classes and JIT compile
+  private static final int CYCLES = 5000;
+
+  //Bytes per loop, by section name
+  private static final Map<String, Long> BUDGETS = Map.of(
+    "FullCycle", 16384L,
+    "CommandScheduler", 8192L,
+    "Drivetrain.periodic", 4096L,
+    "PoseEstimation.periodic", 1024L,
+    "SwerveDrive.execute", 4096L,
+    "StatusSignalScheduler.update", 1024L,
+    "TelemetryPublisher.flush", 0L,
+    "LogWriter.recordMetrics", 1024L);
+
+  private static Robot robot;
+  private static XboxControllerSim driver;
+
+  @BeforeAll
+  static void startRobot(){
+    HAL.initialize(500, 0);
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAutonomous(false);
+    DriverStationSim.setEnabled(true);
+    DriverStationSim.notifyNewData();
+
+    robot = new Robot();
+    robot.robotInit();
+    robot.teleopInit();
+    driver = new XboxControllerSim(RobotContainer.driverController);
+  }
+
+  @AfterAll
+  static void stopRobot(){
+    HAL.shutdown();
+  }
+
+  @Test
+  void loopStaysWithinAllocationBudgets(){
+    for(int i = 0; i < WARMUP_CYCLES; i++){
+      runCycle(i);
+    }
+
+    Map<LoopProfiler.Section, Long> startBytes = new HashMap<>();
+    for(LoopProfiler.Section section : LoopProfiler.getInstance().getSections()){
+      startBytes.put(section, section.getTotalAllocatedBytes());
+    }
+    for(int i = 0; i < CYCLES; i++){
+      runCycle(WARMUP_CYCLES + i);
+    }
+
+    List<String> overBudget = new ArrayList<>();
+    System.out.printf("%-40s %12s %12s%n", "Section", "Bytes/loop", "Budget");
+    for(LoopProfiler.Section section : LoopProfiler.getInstance().getSections()){
+      long bytesPerLoop = (section.getTotalAllocatedBytes() - startBytes.getOrDefault(section, 0L)) / CYCLES;
+      Long budget = BUDGETS.get(section.getName());
+      if(budget != null && bytesPerLoop > budget){
+        overBudget.add(section.getName() + " allocates " + bytesPerLoop + " bytes/loop, budget " + budget);
+      }
+      System.out.printf("%-40s %12d %12s%n", section.getName(), bytesPerLoop, budget == null ? "-" : budget);
+    }
+
+    assertTrue(overBudget.isEmpty(), String.join("\n", overBudget));
+  }
+
+  private static void runCycle(int cycle){
+    //Sweep the sticks so the drive path sees changing setpoints
+    double t = cycle * 0.02;
+    driver.setLeftY(Math.sin(t));
+    driver.setLeftX(Math.cos(0.7 * t));
+    driver.setRightX(Math.sin(0.3 * t));
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+
+    Logger.periodicBeforeUser();
+    robot.robotPeriodic();
+    robot.simulationPeriodic();
+    Logger.periodicAfterUser(0, 0);
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.lib.util.TelemetryPublisher;
+import frc.robot.subsystems.ModuleIO;
+import frc.robot.subsystems.SwerveModule;
+
+/** Checks that filling and publishing the drivetrain telemetry allocates nothing once warmed up. */
+class TelemetryAllocationTest {
+  private static final int WARMUP_CALLS = 20000; //Enough for the JIT to compile the path
+  private static final int CALLS = 10000;
+
+  private NetworkTableInstance networkTables;
+  private SwerveModule module;
+  private TelemetryPublisher.DoubleArrayTopic topic;
+  private final double[] buffer = new double[5];
+
+  @BeforeEach
+  void setUp(){
+    networkTables = NetworkTableInstance.create();
+    module = new SwerveModule(new ModuleIO() {}, "Test");
+    //Unlimited rate, so every call sends
+    topic = TelemetryPublisher.getInstance().doubleArrayTopic(networkTables.getTable("Test"), "Module", 0, 1e6);
+  }
+
+  @AfterEach
+  void tearDown(){
+    TelemetryPublisher.getInstance().reset(); //Before the instance its publishers belong to is closed
+    networkTables.close();
+  }
+
+  @Test
+  void fillAndPublishDoNotAllocate(){
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    for(int i = 0; i < WARMUP_CALLS; i++){
+      publish(i);
+    }
+
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for(int i = 0; i < CALLS; i++){
+      publish(i);
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertEquals(0, allocated, "Bytes allocated over " + CALLS + " calls");
+  }
+
+  private void publish(int call){
+    module.fillState(buffer, 0);
+    module.fillSetpoint(buffer, 2);
+    buffer[4] = call; //Changes every call, so the value is always sent
+    topic.set(buffer);
+    TelemetryPublisher.getInstance().flush();
+  }
+}